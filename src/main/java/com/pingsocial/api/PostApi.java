@@ -1,6 +1,7 @@
 package com.pingsocial.api;
 
 import com.pingsocial.dto.CreatePostDto;
+import com.pingsocial.dto.CursorPageDto;
 import com.pingsocial.dto.ListResponseDto;
 import com.pingsocial.dto.ResponsePost;
 import com.pingsocial.models.PostFilterType;
@@ -39,6 +40,63 @@ public interface PostApi {
             @Parameter(hidden = true) Pageable pageable
     );
 
+    @Operation(
+            summary = "Obtém o feed de posts paginado por cursor",
+            description = "Retorna posts conforme o filtro, do mais recente para o mais antigo. " +
+                    "Use o nextCursor da resposta para obter a próxima página."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Posts obtidos com sucesso", content = @Content(schema = @Schema(implementation = CursorPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Filtro, tamanho ou cursor inválido"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    @GetMapping("/{userId}/feed")
+    ResponseEntity<CursorPageDto<ResponsePost>> getFeed(
+            @Parameter(description = "ID do usuário", required = true)
+            @PathVariable Long userId,
+            @Parameter(description = "Tipo de filtro de post", required = true)
+            @RequestParam PostFilterType filterType,
+            @Parameter(description = "Cursor retornado pela página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Quantidade de posts (1 a 100)")
+            @RequestParam(defaultValue = "20") int size
+    );
+
+    @Operation(
+            summary = "Obtém os posts com uma hashtag",
+            description = "Retorna os posts com a hashtag, do mais recente para o mais antigo, paginados por cursor. " +
+                    "A tag é comparada sem acentos e sem diferenciar maiúsculas."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Posts obtidos com sucesso", content = @Content(schema = @Schema(implementation = CursorPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Tag, tamanho ou cursor inválido"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    @GetMapping("/tag/{tag}")
+    ResponseEntity<CursorPageDto<ResponsePost>> getPostsByTag(
+            @Parameter(description = "Hashtag, sem o #", required = true)
+            @PathVariable String tag,
+            @Parameter(description = "Cursor retornado pela página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Quantidade de posts (1 a 100)")
+            @RequestParam(defaultValue = "20") int size
+    );
+
+    @Operation(
+            summary = "Obtém um post pelo ID",
+            description = "Retorna o post, inclusive os já arquivados."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Post encontrado", content = @Content(schema = @Schema(implementation = ResponsePost.class))),
+            @ApiResponse(responseCode = "404", description = "Post não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    @GetMapping("/permalink/{postId}")
+    ResponseEntity<ResponsePost> getPost(
+            @Parameter(description = "ID do post", required = true)
+            @PathVariable Long postId
+    );
+
     @Operation(
             summary = "Cria um novo post",
             description = "Cria um post para o usuário informado."
@@ -0,0 +1,39 @@
+package com.pingsocial.api;
+
+import com.pingsocial.dto.TrendingTopicDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@Tag(
+        name = "Tópicos em Alta",
+        description = "Endpoints para consultar as hashtags e termos mais frequentes nos posts recentes."
+)
+public interface TrendingApi {
+
+    @Operation(
+            summary = "Obtém os tópicos em alta",
+            description = "Retorna as hashtags (\"#tag\") e termos mais frequentes na janela recente, globalmente ou em uma tribo. " +
+                    "As contagens são estimativas e podem ficar um pouco acima do valor real."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Tópicos obtidos com sucesso", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TrendingTopicDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Limite inválido"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    ResponseEntity<List<TrendingTopicDto>> getTrending(
+            @Parameter(description = "ID da tribo (omitido para o ranking global)")
+            @RequestParam(required = false) Long tribeId,
+            @Parameter(description = "Quantidade de tópicos")
+            @RequestParam(defaultValue = "10") int limit
+    );
+}
@@ -0,0 +1,68 @@
+package com.pingsocial.config;
+
+import com.pingsocial.models.ChatPayloadFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registra o formato de payload escolhido por cada sessão no frame CONNECT.
+ * O formato binário só é aceito em sessões do endpoint nativo, pois o SockJS
+ * transporta apenas frames de texto.
+ */
+@Component
+public class ChatPayloadFormatInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatPayloadFormatInterceptor.class);
+
+    private final Map<String, ChatPayloadFormat> sessionFormats = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        ChatPayloadFormat format = ChatPayloadFormat.fromHeader(accessor.getFirstNativeHeader(ChatPayloadFormat.HEADER));
+        if (format == ChatPayloadFormat.JSON) {
+            return message;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean nativeTransport = attributes != null
+                && Boolean.TRUE.equals(attributes.get(NativeTransportHandshakeInterceptor.NATIVE_TRANSPORT_ATTRIBUTE));
+        if (!nativeTransport) {
+            logger.debug("Sessão {} pediu payload {} via SockJS, mantendo JSON", accessor.getSessionId(), format);
+            return message;
+        }
+
+        sessionFormats.put(accessor.getSessionId(), format);
+        logger.debug("Sessão {} usando payload {}", accessor.getSessionId(), format);
+        return message;
+    }
+
+    public ChatPayloadFormat formatOf(String sessionId) {
+        return sessionFormats.getOrDefault(sessionId, ChatPayloadFormat.JSON);
+    }
+
+    public boolean hasCompactSessions() {
+        return !sessionFormats.isEmpty();
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        sessionFormats.remove(event.getSessionId());
+    }
+}
@@ -4,10 +4,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -15,6 +17,14 @@ public class CustomHandshakeHandler extends DefaultHandshakeHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomHandshakeHandler.class);
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean permessageDeflateEnabled;
+
+    public CustomHandshakeHandler(boolean permessageDeflateEnabled) {
+        this.permessageDeflateEnabled = permessageDeflateEnabled;
+    }
+
     @Override
     protected Principal determineUser(ServerHttpRequest request,
                                       WebSocketHandler wsHandler,
@@ -30,4 +40,27 @@ public class CustomHandshakeHandler extends DefaultHandshakeHandler {
 
         return optionalPrincipal.orElse(null);
     }
+
+    /**
+     * Negocia a extensão permessage-deflate quando solicitada pelo cliente e suportada
+     * pelo container, ou a remove quando a compressão estiver desabilitada.
+     */
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+
+        if (permessageDeflateEnabled) {
+            if (extensions.stream().anyMatch(ext -> PERMESSAGE_DEFLATE.equalsIgnoreCase(ext.getName()))) {
+                logger.debug("Extensão {} negociada no handshake", PERMESSAGE_DEFLATE);
+            }
+            return extensions;
+        }
+
+        return extensions.stream()
+                .filter(ext -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(ext.getName()))
+                .toList();
+    }
 }
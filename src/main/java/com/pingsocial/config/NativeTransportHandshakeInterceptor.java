@@ -0,0 +1,29 @@
+package com.pingsocial.config;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Marca as sessões abertas pelo endpoint WebSocket nativo (sem SockJS).
+ * Somente essas sessões podem receber frames binários.
+ */
+public class NativeTransportHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String NATIVE_TRANSPORT_ATTRIBUTE = "nativeTransport";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.pingsocial.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pingsocial.dto.BatchedFrameDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agrupa os frames MESSAGE enviados a uma mesma sessão em um único frame.
+ * <p>
+ * O agrupamento é opcional: a sessão ativa com um SUBSCRIBE em "/user/queue/batch". A partir
+ * daí as mensagens de texto para a sessão são acumuladas por até alguns milissegundos (ou até
+ * um número máximo de mensagens) e enviadas em um frame para essa inscrição, cujo corpo é uma
+ * lista JSON de {@link BatchedFrameDto} com o destino, a inscrição original, os headers e o
+ * corpo de cada mensagem. Payloads binários não são agrupados. O agrupamento é registrado no
+ * canal de saída; no canal de entrada fica apenas o {@link #subscriptionTracker()}, que
+ * acompanha as inscrições.
+ */
+@Component
+public class OutboundFrameBatcher implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundFrameBatcher.class);
+
+    public static final String BATCH_SUBSCRIPTION = "/user/queue/batch";
+
+    private static final String BATCHED_HEADER = "pingsocialBatched";
+
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final Map<String, SessionBuffer> buffers = new ConcurrentHashMap<>();
+    private final ChannelInterceptor subscriptionTracker = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            track(message);
+            return message;
+        }
+    };
+
+    @Value("${pingsocial.websocket.batching.window-ms:5}")
+    private long windowMs;
+
+    @Value("${pingsocial.websocket.batching.max-messages:32}")
+    private int maxMessages;
+
+    public OutboundFrameBatcher(ObjectMapper objectMapper, @Qualifier("taskScheduler") TaskScheduler taskScheduler) {
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Interceptor do canal de entrada: só acompanha as inscrições em {@link #BATCH_SUBSCRIPTION}
+     * e sempre devolve a mensagem. Frames SEND do cliente também têm o tipo MESSAGE e não
+     * podem passar pelo agrupamento.
+     */
+    public ChannelInterceptor subscriptionTracker() {
+        return subscriptionTracker;
+    }
+
+    /**
+     * Agrupa os frames MESSAGE do canal de saída.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        StompCommand command = StompHeaderAccessor.getCommand(headers);
+        boolean outboundMessage = command == null
+                ? SimpMessageHeaderAccessor.getMessageType(headers) == SimpMessageType.MESSAGE
+                : command == StompCommand.MESSAGE;
+        return outboundMessage ? coalesce(message, channel) : message;
+    }
+
+    private void track(Message<?> message) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return;
+        }
+
+        String sessionId = accessor.getSessionId();
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE -> {
+                if (BATCH_SUBSCRIPTION.equals(accessor.getDestination())) {
+                    buffers.put(sessionId, new SessionBuffer(accessor.getSubscriptionId()));
+                    logger.debug("Sessão {} passou a receber frames agrupados", sessionId);
+                }
+            }
+            case UNSUBSCRIBE -> {
+                SessionBuffer buffer = buffers.get(sessionId);
+                if (buffer != null && buffer.subscriptionId.equals(accessor.getSubscriptionId())) {
+                    buffers.remove(sessionId);
+                }
+            }
+            case DISCONNECT -> buffers.remove(sessionId);
+            default -> {
+            }
+        }
+    }
+
+    private Message<?> coalesce(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        SessionBuffer buffer = sessionId != null ? buffers.get(sessionId) : null;
+        if (buffer == null || headers.containsKey(BATCHED_HEADER)) {
+            return message;
+        }
+
+        if (!(message.getPayload() instanceof byte[]) || !isText(headers)) {
+            // Envia o que estava acumulado antes, para não inverter a ordem da sessão.
+            flush(sessionId, buffer, channel);
+            return message;
+        }
+
+        List<Message<?>> ready = null;
+        synchronized (buffer) {
+            buffer.pending.add(message);
+            if (buffer.pending.size() >= maxMessages) {
+                ready = buffer.drain();
+            } else if (buffer.pending.size() == 1) {
+                taskScheduler.schedule(() -> flush(sessionId, buffer, channel),
+                        Instant.now().plus(Duration.ofMillis(windowMs)));
+            }
+        }
+
+        if (ready != null) {
+            send(sessionId, buffer.subscriptionId, ready, channel);
+        }
+        return null;
+    }
+
+    private void flush(String sessionId, SessionBuffer buffer, MessageChannel channel) {
+        List<Message<?>> ready;
+        synchronized (buffer) {
+            ready = buffer.drain();
+        }
+        if (!ready.isEmpty()) {
+            send(sessionId, buffer.subscriptionId, ready, channel);
+        }
+    }
+
+    private void send(String sessionId, String subscriptionId, List<Message<?>> ready, MessageChannel channel) {
+        try {
+            if (ready.size() == 1) {
+                channel.send(markBatched(ready.get(0)));
+                return;
+            }
+
+            List<BatchedFrameDto> frames = new ArrayList<>(ready.size());
+            for (Message<?> item : ready) {
+                frames.add(toFrame(item));
+            }
+
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(BATCH_SUBSCRIPTION);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setHeader(BATCHED_HEADER, Boolean.TRUE);
+            channel.send(MessageBuilder.createMessage(objectMapper.writeValueAsBytes(frames), accessor.getMessageHeaders()));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            logger.error("Erro ao enviar frame agrupado para a sessão {}: {}", sessionId, ex.getMessage(), ex);
+        }
+    }
+
+    private BatchedFrameDto toFrame(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null) {
+            accessor = SimpMessageHeaderAccessor.wrap(message);
+        }
+
+        Map<String, String> nativeHeaders = new LinkedHashMap<>();
+        Map<String, List<String>> original = accessor.toNativeHeaderMap();
+        original.forEach((name, values) -> {
+            if (!values.isEmpty() && !SimpMessageHeaderAccessor.ORIGINAL_DESTINATION.equals(name)) {
+                nativeHeaders.put(name, values.get(0));
+            }
+        });
+
+        String destination = accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        return new BatchedFrameDto(
+                destination != null ? destination : accessor.getDestination(),
+                accessor.getSubscriptionId(),
+                nativeHeaders,
+                new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)
+        );
+    }
+
+    private static Message<?> markBatched(Message<?> message) {
+        return MessageBuilder.fromMessage(message).setHeader(BATCHED_HEADER, Boolean.TRUE).build();
+    }
+
+    private static boolean isText(MessageHeaders headers) {
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        MimeType mimeType = contentType instanceof MimeType type ? type
+                : contentType instanceof String value ? MimeTypeUtils.parseMimeType(value) : null;
+        return mimeType == null
+                || "text".equals(mimeType.getType())
+                || MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(mimeType);
+    }
+
+    private static final class SessionBuffer {
+
+        private final String subscriptionId;
+        private final List<Message<?>> pending = new ArrayList<>();
+
+        private SessionBuffer(String subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+
+        private List<Message<?>> drain() {
+            List<Message<?>> drained = new ArrayList<>(pending);
+            pending.clear();
+            return drained;
+        }
+    }
+}
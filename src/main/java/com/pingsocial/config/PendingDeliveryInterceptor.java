@@ -0,0 +1,61 @@
+package com.pingsocial.config;
+
+import com.pingsocial.service.PendingDeliveryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Esvazia a fila de entregas pendentes quando o usuário se inscreve em "/user/queue/messages".
+ * <p>
+ * O envio não pode acontecer no CONNECT: até o SUBSCRIBE ser registrado no broker as
+ * mensagens para o usuário seriam descartadas. Por isso a fila é esvaziada depois que o
+ * {@link UserDestinationMessageHandler} processou a inscrição.
+ */
+@Component
+public class PendingDeliveryInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingDeliveryInterceptor.class);
+
+    private final PendingDeliveryService pendingDeliveryService;
+
+    // @Lazy: o serviço depende do SimpMessagingTemplate, criado pela configuração do broker que registra este interceptor
+    public PendingDeliveryInterceptor(@Lazy PendingDeliveryService pendingDeliveryService) {
+        this.pendingDeliveryService = pendingDeliveryService;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof UserDestinationMessageHandler)) {
+            return;
+        }
+
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE
+                || !PendingDeliveryService.MESSAGES_SUBSCRIPTION.equals(accessor.getDestination())) {
+            return;
+        }
+
+        Principal user = accessor.getUser();
+        if (user == null) {
+            return;
+        }
+
+        try {
+            pendingDeliveryService.flush(user.getName());
+        } catch (Exception flushEx) {
+            logger.error("Erro ao entregar mensagens pendentes para {}: {}", user.getName(), flushEx.getMessage(), flushEx);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.pingsocial.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Habilita as tarefas agendadas da aplicação.
+ * Declara um "taskScheduler" próprio para que os jobs (@Scheduled) não disputem
+ * as threads do scheduler de heartbeat do message broker STOMP.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Value("${pingsocial.scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("pingsocial-job-");
+        return scheduler;
+    }
+}
@@ -0,0 +1,125 @@
+package com.pingsocial.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cria o buffer de envio de cada sessão WebSocket e acompanha os consumidores lentos.
+ * <p>
+ * É o único decorator de envio da sessão: {@link SlowConsumerWebSocketHandler} o usa no
+ * lugar do decorator padrão do Spring, com os limites do transporte
+ * (sendBufferSizeLimit/sendTimeLimit em {@link WebSocketConfig}) e a política configurada
+ * para quando o buffer enche (DROP descarta as mensagens mais antigas, TERMINATE encerra a
+ * sessão). As métricas são agregadas (maior buffer e número de sessões com envio
+ * pendente), sem uma série por sessão.
+ */
+@Component
+public class SlowConsumerMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerMonitor.class);
+
+    private final Map<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicInteger backloggedSessions = new AtomicInteger();
+    private final Counter slowConsumerCounter;
+    private final Counter terminatedCounter;
+
+    @Value("${pingsocial.websocket.slow-consumer.overflow-strategy:DROP}")
+    private OverflowStrategy overflowStrategy;
+
+    @Value("${pingsocial.websocket.slow-consumer.threshold-ratio:0.75}")
+    private double thresholdRatio;
+
+    public SlowConsumerMonitor(MeterRegistry meterRegistry) {
+        Gauge.builder("pingsocial.websocket.session.queue.depth.max", maxQueueDepth, AtomicInteger::get)
+                .description("Maior quantidade de bytes aguardando envio entre as sessões WebSocket")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pingsocial.websocket.sessions.backlogged", backloggedSessions, AtomicInteger::get)
+                .description("Sessões WebSocket com bytes aguardando envio")
+                .register(meterRegistry);
+        this.slowConsumerCounter = Counter.builder("pingsocial.websocket.slow.consumers")
+                .description("Sessões detectadas acima do limiar de consumidor lento")
+                .register(meterRegistry);
+        this.terminatedCounter = Counter.builder("pingsocial.websocket.slow.consumers.terminated")
+                .description("Sessões encerradas por consumo lento")
+                .register(meterRegistry);
+        Gauge.builder("pingsocial.websocket.sessions", sessions, Map::size)
+                .description("Sessões WebSocket abertas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Envolve a sessão no buffer de envio limitado e passa a acompanhá-la.
+     */
+    public ConcurrentWebSocketSessionDecorator decorate(WebSocketSession session, int sendTimeLimit, int bufferSizeLimit) {
+        ConcurrentWebSocketSessionDecorator decorated =
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, bufferSizeLimit, overflowStrategy);
+        sessions.put(session.getId(), decorated);
+        return decorated;
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Atualiza as métricas de fila e trata as sessões que estão acima do limiar de
+     * consumidor lento.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.websocket.slow-consumer.check-interval-ms:5000}")
+    public void inspectSessions() {
+        int maxDepth = 0;
+        int backlogged = 0;
+
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            int depth = session.getBufferSize();
+            if (depth > 0) {
+                backlogged++;
+                maxDepth = Math.max(maxDepth, depth);
+            }
+
+            boolean slow = depth > session.getBufferSizeLimit() * thresholdRatio
+                    || session.getTimeSinceSendStarted() > session.getSendTimeLimit() * thresholdRatio;
+            if (!slow) {
+                continue;
+            }
+
+            slowConsumerCounter.increment();
+            logger.warn("Consumidor lento detectado na sessão {}: {} bytes pendentes há {} ms",
+                    session.getId(), depth, session.getTimeSinceSendStarted());
+
+            if (overflowStrategy == OverflowStrategy.TERMINATE) {
+                terminate(session);
+            }
+        }
+
+        maxQueueDepth.set(maxDepth);
+        backloggedSessions.set(backlogged);
+    }
+
+    private void terminate(ConcurrentWebSocketSessionDecorator session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            terminatedCounter.increment();
+            logger.info("Sessão {} encerrada por consumo lento", session.getId());
+        } catch (IOException ex) {
+            logger.error("Erro ao encerrar sessão lenta {}: {}", session.getId(), ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pingsocial.config;
+
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Handler STOMP cujas sessões usam o buffer de envio do {@link SlowConsumerMonitor}
+ * (com a política de overflow configurada) em vez do decorator padrão, que sempre
+ * encerra a sessão quando o buffer enche.
+ */
+class SlowConsumerWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    private final SlowConsumerMonitor slowConsumerMonitor;
+
+    SlowConsumerWebSocketHandler(MessageChannel clientInboundChannel, SubscribableChannel clientOutboundChannel,
+                                 SlowConsumerMonitor slowConsumerMonitor) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.slowConsumerMonitor = slowConsumerMonitor;
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        return slowConsumerMonitor.decorate(session, getSendTimeLimit(), getSendBufferSizeLimit());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        slowConsumerMonitor.remove(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pingsocial.config;
+
+import com.pingsocial.service.TribeMembershipCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Restringe as inscrições em "/topic/tribe/{tribeId}" aos membros da tribo, consultando o
+ * {@link TribeMembershipCache}. Envios diretos ao tópico são bloqueados: as mensagens
+ * devem passar por "/app/tribe/{tribeId}" para serem validadas e persistidas.
+ */
+@Component
+public class TribeSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TribeSubscriptionInterceptor.class);
+
+    public static final String TRIBE_TOPIC_PREFIX = "/topic/tribe/";
+
+    private final TribeMembershipCache tribeMembershipCache;
+
+    public TribeSubscriptionInterceptor(TribeMembershipCache tribeMembershipCache) {
+        this.tribeMembershipCache = tribeMembershipCache;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(TRIBE_TOPIC_PREFIX)) {
+            return message;
+        }
+
+        if (accessor.getCommand() == StompCommand.SEND) {
+            logger.warn("Envio direto ao tópico {} bloqueado na sessão {}", destination, accessor.getSessionId());
+            throw new AccessDeniedException("Mensagens de tribo devem ser enviadas para /app/tribe/{tribeId}");
+        }
+
+        if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            Principal user = accessor.getUser();
+            Long tribeId = parseTribeId(destination);
+            if (user == null || tribeId == null || !tribeMembershipCache.isMember(user.getName(), tribeId)) {
+                logger.warn("Inscrição negada em {} para {}", destination, user != null ? user.getName() : null);
+                throw new AccessDeniedException("Usuário não é membro da tribo");
+            }
+        }
+        return message;
+    }
+
+    private static Long parseTribeId(String destination) {
+        try {
+            return Long.valueOf(destination.substring(TRIBE_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
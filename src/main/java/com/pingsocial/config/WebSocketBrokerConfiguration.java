@@ -0,0 +1,33 @@
+package com.pingsocial.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+/**
+ * Configuração do message broker STOMP, no lugar de @EnableWebSocketMessageBroker.
+ * Os ajustes continuam em {@link WebSocketConfig}; esta classe só troca o handler STOMP
+ * pelo {@link SlowConsumerWebSocketHandler}, que decide como o buffer de envio das
+ * sessões é criado.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WebSocketBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private final SlowConsumerMonitor slowConsumerMonitor;
+
+    public WebSocketBrokerConfiguration(SlowConsumerMonitor slowConsumerMonitor) {
+        this.slowConsumerMonitor = slowConsumerMonitor;
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(
+            @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+            @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel) {
+        return decorateWebSocketHandler(
+                new SlowConsumerWebSocketHandler(clientInboundChannel, clientOutboundChannel, slowConsumerMonitor));
+    }
+}
@@ -2,20 +2,70 @@ package com.pingsocial.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
 
     private final JwtTokenService jwtService;
+    private final ChatPayloadFormatInterceptor chatPayloadFormatInterceptor;
+    private final TribeSubscriptionInterceptor tribeSubscriptionInterceptor;
+    private final PendingDeliveryInterceptor pendingDeliveryInterceptor;
+    private final OutboundFrameBatcher outboundFrameBatcher;
 
-    public WebSocketConfig(JwtTokenService jwtService) {
+    @Value("${pingsocial.websocket.permessage-deflate.enabled:true}")
+    private boolean permessageDeflateEnabled;
+
+    @Value("${pingsocial.websocket.inbound.virtual-threads:false}")
+    private boolean inboundVirtualThreads;
+
+    @Value("${pingsocial.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${pingsocial.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${pingsocial.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${pingsocial.websocket.outbound.virtual-threads:false}")
+    private boolean outboundVirtualThreads;
+
+    @Value("${pingsocial.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${pingsocial.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${pingsocial.websocket.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
+    @Value("${pingsocial.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${pingsocial.websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${pingsocial.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    public WebSocketConfig(JwtTokenService jwtService,
+                           ChatPayloadFormatInterceptor chatPayloadFormatInterceptor,
+                           TribeSubscriptionInterceptor tribeSubscriptionInterceptor,
+                           PendingDeliveryInterceptor pendingDeliveryInterceptor,
+                           OutboundFrameBatcher outboundFrameBatcher) {
         this.jwtService = jwtService;
+        this.chatPayloadFormatInterceptor = chatPayloadFormatInterceptor;
+        this.tribeSubscriptionInterceptor = tribeSubscriptionInterceptor;
+        this.pendingDeliveryInterceptor = pendingDeliveryInterceptor;
+        this.outboundFrameBatcher = outboundFrameBatcher;
     }
 
     @Override
@@ -23,7 +73,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         logger.info("Registrando endpoint WebSocket '/ws' com suporte a SockJS");
 
         registry.addEndpoint("/ws")
-                .setHandshakeHandler(new CustomHandshakeHandler())
+                .setHandshakeHandler(new CustomHandshakeHandler(permessageDeflateEnabled))
                 .addInterceptors(new JwtHandshakeInterceptor(jwtService))
                 .setAllowedOriginPatterns(
                         "http://localhost:4200",
@@ -31,7 +81,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 )
                 .withSockJS();
 
-        logger.info("Handshake configurado com JwtInterceptor e CustomHandler.");
+        logger.info("Registrando endpoint WebSocket nativo '/ws-native' (frames binários, sem SockJS)");
+
+        registry.addEndpoint("/ws-native")
+                .setHandshakeHandler(new CustomHandshakeHandler(permessageDeflateEnabled))
+                .addInterceptors(new JwtHandshakeInterceptor(jwtService), new NativeTransportHandshakeInterceptor())
+                .setAllowedOriginPatterns(
+                        "http://localhost:4200",
+                        "https://ping-social-front-ym8d.vercel.app"
+                );
+
+        logger.info("Handshake configurado com JwtInterceptor e CustomHandler (permessage-deflate: {}).", permessageDeflateEnabled);
     }
 
     @Override
@@ -42,4 +102,52 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.enableSimpleBroker("/topic", "/queue");
         config.setUserDestinationPrefix("/user");
     }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        logger.info("Limites de transporte: buffer de envio {} bytes, tempo de envio {} ms, mensagem {} bytes",
+                sendBufferSizeLimit, sendTimeLimit, messageSizeLimit);
+
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(chatPayloadFormatInterceptor, tribeSubscriptionInterceptor, pendingDeliveryInterceptor,
+                outboundFrameBatcher.subscriptionTracker());
+        configureChannel("inbound", registration, inboundVirtualThreads,
+                inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(outboundFrameBatcher);
+        configureChannel("outbound", registration, outboundVirtualThreads,
+                outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity);
+    }
+
+    /**
+     * Configura o executor de um canal do broker. Threads virtuais só estão disponíveis
+     * a partir do Java 21; em versões anteriores o pool de threads configurado é usado.
+     */
+    private void configureChannel(String name, ChannelRegistration registration, boolean virtualThreads,
+                                  int corePoolSize, int maxPoolSize, int queueCapacity) {
+        if (virtualThreads) {
+            if (Runtime.version().feature() >= 21) {
+                logger.info("Canal {} configurado com threads virtuais", name);
+                registration.executor(new VirtualThreadTaskExecutor("ws-" + name + "-"));
+                return;
+            }
+            logger.warn("Threads virtuais requerem Java 21+, usando pool de threads no canal {}", name);
+        }
+
+        logger.info("Canal {} configurado com pool de threads: core={}, max={}, fila={}",
+                name, corePoolSize, maxPoolSize, queueCapacity);
+        registration.taskExecutor()
+                .corePoolSize(corePoolSize)
+                .maxPoolSize(maxPoolSize)
+                .queueCapacity(queueCapacity);
+    }
 }
@@ -0,0 +1,36 @@
+package com.pingsocial.controller;
+
+import com.pingsocial.dto.ChatActivityDto;
+import com.pingsocial.service.ChatActivityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+public class ChatActivityController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatActivityController.class);
+    private final ChatActivityService chatActivityService;
+
+    public ChatActivityController(ChatActivityService chatActivityService) {
+        this.chatActivityService = chatActivityService;
+    }
+
+    @MessageMapping("/typing")
+    public void publishActivity(ChatActivityDto activity, Principal principal) {
+        if (activity == null || principal == null || activity.peer() == null || activity.type() == null) {
+            logger.debug("Indicador de atividade inválido recebido, ignorando.");
+            return;
+        }
+
+        String sender = principal.getName();
+        if (sender.equals(activity.peer())) {
+            return;
+        }
+
+        chatActivityService.publish(sender, activity.peer(), activity.type());
+    }
+}
@@ -1,12 +1,21 @@
 package com.pingsocial.controller;
 
+import com.pingsocial.dto.ChatAckDto;
 import com.pingsocial.models.ChatMessage;
 import com.pingsocial.repository.ChatMessageRepository;
+import com.pingsocial.service.ChatConversationService;
+import com.pingsocial.service.ChatDeliveryService;
+import com.pingsocial.service.ChatSearchService;
+import com.pingsocial.service.ChatSendDeduplicator;
+import com.pingsocial.service.ChatSyncService;
+import com.pingsocial.service.ConversationTailCache;
 import com.pingsocial.service.EmailService;
+import com.pingsocial.service.TribeMembershipCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -19,17 +28,34 @@ import java.util.Objects;
 public class ChatController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
-    private final SimpMessagingTemplate template;
+    private final ChatDeliveryService chatDeliveryService;
     private final ChatMessageRepository chatMessageRepository;
     private final EmailService emailService;
+    private final ChatConversationService chatConversationService;
+    private final ChatSearchService chatSearchService;
+    private final TribeMembershipCache tribeMembershipCache;
+    private final ChatSendDeduplicator chatSendDeduplicator;
+    private final ConversationTailCache conversationTailCache;
+    private final ChatSyncService chatSyncService;
+
+    private static final int MAX_CLIENT_MESSAGE_ID_LENGTH = 64;
 
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss")
             .withZone(ZoneId.systemDefault());
 
-    public ChatController(SimpMessagingTemplate template, ChatMessageRepository chatMessageRepository, EmailService emailService) {
-        this.template = Objects.requireNonNull(template, "SimpMessagingTemplate não pode ser null");
+    public ChatController(ChatDeliveryService chatDeliveryService, ChatMessageRepository chatMessageRepository, EmailService emailService,
+                          ChatConversationService chatConversationService, ChatSearchService chatSearchService,
+                          TribeMembershipCache tribeMembershipCache, ChatSendDeduplicator chatSendDeduplicator,
+                          ConversationTailCache conversationTailCache, ChatSyncService chatSyncService) {
+        this.chatDeliveryService = Objects.requireNonNull(chatDeliveryService, "ChatDeliveryService não pode ser null");
         this.chatMessageRepository = Objects.requireNonNull(chatMessageRepository, "ChatMessageRepository não pode ser null");
         this.emailService = Objects.requireNonNull(emailService, "EmailService não pode ser null");
+        this.chatConversationService = Objects.requireNonNull(chatConversationService, "ChatConversationService não pode ser null");
+        this.chatSearchService = Objects.requireNonNull(chatSearchService, "ChatSearchService não pode ser null");
+        this.tribeMembershipCache = Objects.requireNonNull(tribeMembershipCache, "TribeMembershipCache não pode ser null");
+        this.chatSendDeduplicator = Objects.requireNonNull(chatSendDeduplicator, "ChatSendDeduplicator não pode ser null");
+        this.conversationTailCache = Objects.requireNonNull(conversationTailCache, "ConversationTailCache não pode ser null");
+        this.chatSyncService = Objects.requireNonNull(chatSyncService, "ChatSyncService não pode ser null");
     }
 
     @MessageMapping("/chat")
@@ -41,6 +67,12 @@ public class ChatController {
 
         String sender = principal.getName();
         message.setSender(sender);
+        message.setTribeId(null);
+
+        String clientMessageId = validClientMessageId(message, sender);
+        if (isRecentResend(sender, clientMessageId)) {
+            return;
+        }
 
 
         String timestamp = TIME_FORMATTER.format(Instant.now());
@@ -52,17 +84,26 @@ public class ChatController {
         try {
             chatMessageRepository.save(message);
             logger.info("Mensagem salva no banco de dados: {}", message);
+            acknowledgeSaved(sender, clientMessageId, message.getId());
+            conversationTailCache.append(message);
+            chatConversationService.onMessageStored(message);
+            chatSearchService.index(message);
+        } catch (DataIntegrityViolationException ex) {
+            Long existingId = clientMessageId == null ? null
+                    : chatMessageRepository.findIdByClientMessageId(sender, message.getRecipient(), clientMessageId).orElse(null);
+            if (existingId == null) {
+                logger.error("Erro ao persistir a mensagem no banco de dados: {}", ex.getMessage(), ex);
+            } else {
+                acknowledgePersistedResend(sender, clientMessageId, existingId);
+                return;
+            }
         } catch (Exception ex) {
             logger.error("Erro ao persistir a mensagem no banco de dados: {}", ex.getMessage(), ex);
         }
 
 
         try {
-            template.convertAndSendToUser(
-                    message.getRecipient(),
-                    "/queue/messages",
-                    message
-            );
+            chatDeliveryService.deliver(message);
         } catch (Exception ex) {
             logger.error("Erro ao enviar mensagem para o usuário {}: {}", message.getRecipient(), ex.getMessage(), ex);
         }
@@ -105,7 +146,7 @@ public class ChatController {
 
 
                 emailService.sendEmail(recipientEmail, subject, body);
-                logger.info("Notificação por e-mail enviada para {}", message.getRecipient());
+                logger.info("Notificação por e-mail enfileirada para {}", message.getRecipient());
             } else {
                 logger.warn("E-mail do destinatário não encontrado para o usuário {}", message.getRecipient());
             }
@@ -114,4 +155,104 @@ public class ChatController {
         }
     }
 
+    /**
+     * Envio ao chat de tribo, com a mesma deduplicação, confirmação e registro para
+     * sincronização do chat entre usuários.
+     */
+    @MessageMapping("/tribe/{tribeId}")
+    public void sendTribeMessage(@DestinationVariable Long tribeId, ChatMessage message, Principal principal) {
+        if (message == null || principal == null) {
+            logger.warn("Mensagem ou usuário principal nulo recebido, abortando processamento.");
+            return;
+        }
+
+        String sender = principal.getName();
+        if (!tribeMembershipCache.isMember(sender, tribeId)) {
+            logger.warn("Usuário {} tentou enviar mensagem para a tribo {} sem ser membro", sender, tribeId);
+            return;
+        }
+
+        message.setSender(sender);
+        message.setRecipient(null);
+        message.setTribeId(tribeId);
+
+        String clientMessageId = validClientMessageId(message, sender);
+        if (isRecentResend(sender, clientMessageId)) {
+            return;
+        }
+
+        message.setTimestamp(TIME_FORMATTER.format(Instant.now()));
+
+        logger.info("Enviando mensagem de {} para a tribo {}", sender, tribeId);
+
+        try {
+            chatMessageRepository.save(message);
+            acknowledgeSaved(sender, clientMessageId, message.getId());
+            conversationTailCache.appendTribe(message);
+            chatSyncService.recordTribeMessage(message);
+        } catch (DataIntegrityViolationException ex) {
+            Long existingId = clientMessageId == null ? null
+                    : chatMessageRepository.findIdByTribeClientMessageId(sender, tribeId, clientMessageId).orElse(null);
+            if (existingId == null) {
+                logger.error("Erro ao persistir a mensagem da tribo {}: {}", tribeId, ex.getMessage(), ex);
+            } else {
+                acknowledgePersistedResend(sender, clientMessageId, existingId);
+            }
+            return;
+        } catch (Exception ex) {
+            logger.error("Erro ao persistir a mensagem da tribo {}: {}", tribeId, ex.getMessage(), ex);
+            if (message.getId() == null) {
+                return;
+            }
+        }
+
+        try {
+            chatDeliveryService.deliverToTribe(message);
+        } catch (Exception ex) {
+            logger.error("Erro ao enviar mensagem para a tribo {}: {}", tribeId, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Descarta IDs de cliente vazios ou longos demais; a mensagem segue sem deduplicação.
+     */
+    private String validClientMessageId(ChatMessage message, String sender) {
+        String clientMessageId = message.getClientMessageId();
+        if (clientMessageId != null && (clientMessageId.isBlank() || clientMessageId.length() > MAX_CLIENT_MESSAGE_ID_LENGTH)) {
+            logger.warn("ID de mensagem do cliente inválido recebido de {}, ignorando deduplicação", sender);
+            message.setClientMessageId(null);
+            return null;
+        }
+        return clientMessageId;
+    }
+
+    /**
+     * Confirma novamente um reenvio que ainda está na janela de deduplicação.
+     */
+    private boolean isRecentResend(String sender, String clientMessageId) {
+        if (clientMessageId == null) {
+            return false;
+        }
+        long existingId = chatSendDeduplicator.find(sender, clientMessageId);
+        if (existingId == ChatSendDeduplicator.NOT_FOUND) {
+            return false;
+        }
+        logger.info("Reenvio da mensagem {} de {} ignorado", clientMessageId, sender);
+        chatDeliveryService.acknowledge(sender, new ChatAckDto(clientMessageId, existingId, true));
+        return true;
+    }
+
+    private void acknowledgeSaved(String sender, String clientMessageId, Long messageId) {
+        if (clientMessageId != null) {
+            chatSendDeduplicator.record(sender, clientMessageId, messageId);
+            chatDeliveryService.acknowledge(sender, new ChatAckDto(clientMessageId, messageId, false));
+        }
+    }
+
+    private void acknowledgePersistedResend(String sender, String clientMessageId, Long existingId) {
+        logger.info("Reenvio da mensagem {} de {} já persistida, ignorado", clientMessageId, sender);
+        chatSendDeduplicator.record(sender, clientMessageId, existingId);
+        chatDeliveryService.acknowledge(sender, new ChatAckDto(clientMessageId, existingId, true));
+    }
+
 }
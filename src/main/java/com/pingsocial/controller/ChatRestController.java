@@ -1,14 +1,30 @@
 package com.pingsocial.controller;
 
+import com.pingsocial.dto.ChatHistoryCursor;
+import com.pingsocial.dto.ChatSyncDto;
+import com.pingsocial.dto.ConversationSummaryDto;
+import com.pingsocial.dto.CursorPageDto;
+import com.pingsocial.dto.MarkReadRequestDto;
+import com.pingsocial.dto.ReadReceiptDto;
+import com.pingsocial.dto.UnreadCountDto;
+import com.pingsocial.exception.SyncCursorExpiredException;
 import com.pingsocial.models.ChatMessage;
 import com.pingsocial.repository.ChatMessageRepository;
-import jakarta.transaction.Transactional;
+import com.pingsocial.service.ChatConversationService;
+import com.pingsocial.service.ChatSearchService;
+import com.pingsocial.service.ChatSyncService;
+import com.pingsocial.service.ConversationPurgeService;
+import com.pingsocial.service.ConversationTailCache;
+import com.pingsocial.service.TribeMembershipCache;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,9 +35,24 @@ public class ChatRestController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatRestController.class);
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatConversationService chatConversationService;
+    private final ConversationPurgeService conversationPurgeService;
+    private final ChatSearchService chatSearchService;
+    private final TribeMembershipCache tribeMembershipCache;
+    private final ConversationTailCache conversationTailCache;
+    private final ChatSyncService chatSyncService;
 
-    public ChatRestController(ChatMessageRepository chatMessageRepository) {
+    public ChatRestController(ChatMessageRepository chatMessageRepository, ChatConversationService chatConversationService,
+                              ConversationPurgeService conversationPurgeService, ChatSearchService chatSearchService,
+                              TribeMembershipCache tribeMembershipCache, ConversationTailCache conversationTailCache,
+                              ChatSyncService chatSyncService) {
         this.chatMessageRepository = chatMessageRepository;
+        this.chatConversationService = chatConversationService;
+        this.conversationPurgeService = conversationPurgeService;
+        this.chatSearchService = chatSearchService;
+        this.tribeMembershipCache = tribeMembershipCache;
+        this.conversationTailCache = conversationTailCache;
+        this.chatSyncService = chatSyncService;
     }
 
     /**
@@ -38,12 +69,17 @@ public class ChatRestController {
         logger.info("Buscando histórico de mensagens entre {} e {}", userId, userId2);
 
         try {
+            var cached = conversationTailCache.page(userId, userId2, page, size);
+            if (cached.isPresent()) {
+                logger.info("Foram encontradas {} mensagens entre {} e {} (cache)", cached.get().size(), userId, userId2);
+                return ResponseEntity.ok(cached.get());
+            }
+
             Pageable pageable = PageRequest.of(page, size);
-            var messages = chatMessageRepository.findBySenderInAndRecipientInOrderByTimestampAsc(
-                    List.of(userId, userId2),
-                    List.of(userId, userId2),
-                    pageable
-            );
+            long visibleAfterId = conversationPurgeService.visibleAfterId(userId, userId2);
+            var messages = chatMessageRepository.findConversationPage(userId, userId2, visibleAfterId, pageable);
+
+            conversationTailCache.requestSeed(userId, userId2);
 
             logger.info("Foram encontradas {} mensagens entre {} e {}", messages.size(), userId, userId2);
             return ResponseEntity.ok(messages);
@@ -56,10 +92,9 @@ public class ChatRestController {
 
     /**
      * Endpoint para limpar o histórico de mensagens entre dois usuários.
+     * As mensagens deixam de ser exibidas imediatamente e são removidas em segundo plano.
      */
-
     @DeleteMapping("/clear")
-    @Transactional
     public ResponseEntity<String> clearConversation(
             @RequestParam(value = "userId") @Email String userId,
             @RequestParam(value = "userId2") @Email String userId2
@@ -68,14 +103,12 @@ public class ChatRestController {
         logger.info("Requisição para limpar o histórico de mensagens entre {} e {}", userId, userId2);
 
         try {
-            long messageCount = chatMessageRepository.countMessagesBetweenUsers(userId, userId2);
-            if (messageCount == 0) {
+            String requestedBy = SecurityContextHolder.getContext().getAuthentication().getName();
+            if (!conversationPurgeService.requestClear(requestedBy, userId, userId2)) {
                 logger.warn("Não foram encontradas mensagens entre {} e {}", userId, userId2);
                 return ResponseEntity.status(404).body("Nenhuma mensagem encontrada para excluir.");
             }
 
-            chatMessageRepository.deleteBySenderInAndRecipientIn(List.of(userId, userId2), List.of(userId, userId2));
-
             logger.info("Histórico de mensagens entre {} e {} foi limpo com sucesso.", userId, userId2);
             return ResponseEntity.ok("Conversa limpa com sucesso.");
 
@@ -84,4 +117,162 @@ public class ChatRestController {
             return ResponseEntity.status(500).body("Erro ao limpar a conversa.");
         }
     }
+
+    /**
+     * Endpoint para marcar como lidas as mensagens recebidas de um usuário até uma sequência.
+     */
+    @PostMapping("/read")
+    public ResponseEntity<ReadReceiptDto> markAsRead(@Valid @RequestBody MarkReadRequestDto request) {
+        String reader = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Requisição de {} para marcar mensagens de {} como lidas até {}", reader, request.peer(), request.upToId());
+
+        try {
+            ReadReceiptDto receipt = chatConversationService.markRead(reader, request.peer(), request.upToId());
+            return ResponseEntity.ok(receipt);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Requisição inválida para marcar mensagens como lidas: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            logger.error("Erro ao marcar mensagens de {} como lidas por {}", request.peer(), reader, e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Endpoint para obter os contadores de mensagens não lidas do usuário autenticado.
+     */
+    @GetMapping("/unread")
+    public ResponseEntity<List<UnreadCountDto>> getUnreadCounts() {
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Buscando contadores de não lidas para {}", owner);
+
+        try {
+            return ResponseEntity.ok(chatConversationService.getUnreadCounts(owner));
+        } catch (Exception e) {
+            logger.error("Erro ao buscar contadores de não lidas para {}", owner, e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Endpoint para listar as conversas do usuário autenticado (caixa de entrada),
+     * com a última mensagem e o contador de não lidas, em ordem de recência.
+     */
+    @GetMapping("/conversations")
+    public ResponseEntity<CursorPageDto<ConversationSummaryDto>> getConversations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Buscando caixa de entrada de {}", owner);
+
+        if (size <= 0 || size > 100) {
+            logger.warn("Tamanho de página inválido para caixa de entrada: {}", size);
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        try {
+            return ResponseEntity.ok(chatConversationService.getConversations(owner, cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cursor inválido na caixa de entrada de {}: {}", owner, e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            logger.error("Erro ao buscar caixa de entrada de {}", owner, e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Endpoint para buscar mensagens do usuário autenticado por texto.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ChatMessage>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "peer", required = false) @Email String peer,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Buscando mensagens de {} com a consulta '{}'", owner, query);
+
+        try {
+            List<ChatMessage> messages = chatSearchService.search(owner, query, peer, limit);
+            logger.info("{} mensagens encontradas para {}", messages.size(), owner);
+            return ResponseEntity.ok(messages);
+        } catch (Exception e) {
+            logger.error("Erro ao buscar mensagens de {}", owner, e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Endpoint para obter o histórico do chat de uma tribo, das mensagens mais recentes para as
+     * mais antigas, paginado por cursor.
+     */
+    @GetMapping("/tribe/{tribeId}/history")
+    public ResponseEntity<CursorPageDto<ChatMessage>> getTribeHistory(
+            @PathVariable Long tribeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        String user = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Buscando histórico do chat da tribo {} para {}", tribeId, user);
+
+        if (!tribeMembershipCache.isMember(user, tribeId)) {
+            logger.warn("Usuário {} não é membro da tribo {}", user, tribeId);
+            return ResponseEntity.status(403).body(null);
+        }
+        if (size <= 0 || size > 100) {
+            logger.warn("Tamanho de página inválido para histórico da tribo: {}", size);
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        try {
+            Long beforeId = cursor == null || cursor.isBlank() ? null : ChatHistoryCursor.decode(cursor).beforeId();
+            List<ChatMessage> rows = conversationTailCache.tribePage(tribeId, beforeId, size + 1)
+                    .orElseGet(() -> beforeId == null
+                            ? chatMessageRepository.findTribeHistory(tribeId, Limit.of(size + 1))
+                            : chatMessageRepository.findTribeHistoryBefore(tribeId, beforeId, Limit.of(size + 1)));
+
+            boolean hasNext = rows.size() > size;
+            List<ChatMessage> page = hasNext ? rows.subList(0, size) : rows;
+            String nextCursor = hasNext ? new ChatHistoryCursor(page.get(page.size() - 1).getId()).encode() : null;
+            logger.info("Foram encontradas {} mensagens da tribo {}", page.size(), tribeId);
+            return ResponseEntity.ok(CursorPageDto.of(page, nextCursor));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cursor inválido no histórico da tribo {}: {}", tribeId, e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            logger.error("Erro ao buscar histórico da tribo {}", tribeId, e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    /**
+     * Endpoint de sincronização incremental: mensagens, leituras e limpezas de conversa do
+     * usuário autenticado desde o cursor. Sem cursor, retorna apenas a posição atual.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<ChatSyncDto> sync(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(defaultValue = "500") int limit
+    ) {
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Sincronizando chat de {} desde {}", owner, since);
+
+        try {
+            ChatSyncDto delta = chatSyncService.sync(owner, since, Math.min(Math.max(limit, 1), 1000));
+            logger.info("Sincronização de {}: {} mensagens, {} leituras, {} limpezas",
+                    owner, delta.messages().size(), delta.reads().size(), delta.clears().size());
+            return ResponseEntity.ok(delta);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cursor de sincronização inválido de {}: {}", owner, e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        } catch (SyncCursorExpiredException e) {
+            logger.warn("Cursor de sincronização expirado de {}: {}", owner, e.getMessage());
+            return ResponseEntity.status(410).body(null);
+        } catch (Exception e) {
+            logger.error("Erro ao sincronizar chat de {}", owner, e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
 }
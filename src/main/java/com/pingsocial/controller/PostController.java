@@ -2,10 +2,13 @@ package com.pingsocial.controller;
 
 import com.pingsocial.api.PostApi;
 import com.pingsocial.dto.CreatePostDto;
+import com.pingsocial.dto.CursorPageDto;
 import com.pingsocial.dto.ListResponseDto;
 import com.pingsocial.dto.ResponsePost;
 import com.pingsocial.models.PostFilterType;
 import com.pingsocial.service.PostService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +18,8 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/posts")
 public class PostController implements PostApi {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostController.class);
+
     private final PostService postService;
 
     public PostController(PostService postService) {
@@ -34,6 +39,50 @@ public class PostController implements PostApi {
         return ResponseEntity.ok(response);
     }
 
+    @Override
+    public ResponseEntity<CursorPageDto<ResponsePost>> getFeed(
+            Long userId,
+            PostFilterType filterType,
+            String cursor,
+            int size) {
+        if (size <= 0 || size > 100) {
+            logger.warn("Tamanho de página inválido para o feed: {}", size);
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        try {
+            return ResponseEntity.ok(postService.getFeed(userId, filterType, cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Requisição de feed inválida do usuário {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @Override
+    public ResponseEntity<CursorPageDto<ResponsePost>> getPostsByTag(String tag, String cursor, int size) {
+        if (size <= 0 || size > 100) {
+            logger.warn("Tamanho de página inválido para a tag {}: {}", tag, size);
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        try {
+            return ResponseEntity.ok(postService.getPostsByTag(tag, cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Requisição inválida para a tag {}: {}", tag, e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @Override
+    public ResponseEntity<ResponsePost> getPost(Long postId) {
+        return postService.getPost(postId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> {
+                    logger.warn("Post {} não encontrado", postId);
+                    return ResponseEntity.notFound().build();
+                });
+    }
+
     @Override
     public ResponseEntity<ResponsePost> createPost(@RequestBody CreatePostDto request) {
         ResponsePost createdPost = postService.createPost(request);
@@ -0,0 +1,46 @@
+package com.pingsocial.controller;
+
+import com.pingsocial.api.TrendingApi;
+import com.pingsocial.dto.TrendingTopicDto;
+import com.pingsocial.service.TrendingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller para consulta dos tópicos em alta.
+ */
+@RestController
+@RequestMapping("/api/trending")
+public class TrendingController implements TrendingApi {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingController.class);
+    private final TrendingService trendingService;
+
+    public TrendingController(TrendingService trendingService) {
+        this.trendingService = trendingService;
+    }
+
+    /**
+     * Obtém os tópicos em alta, globalmente ou de uma tribo.
+     *
+     * @param tribeId ID da tribo (ou null para o ranking global)
+     * @param limit   Quantidade máxima de tópicos
+     * @return ResponseEntity com os tópicos, do mais para o menos frequente
+     */
+    @GetMapping
+    public ResponseEntity<List<TrendingTopicDto>> getTrending(@RequestParam(required = false) Long tribeId,
+                                                              @RequestParam(defaultValue = "10") int limit) {
+        logger.info("Recebida requisição de tópicos em alta (tribo: {}, limite: {})", tribeId, limit);
+
+        try {
+            return ResponseEntity.ok(trendingService.getTrending(tribeId, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Requisição inválida de tópicos em alta: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
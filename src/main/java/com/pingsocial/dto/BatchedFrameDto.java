@@ -0,0 +1,11 @@
+package com.pingsocial.dto;
+
+import java.util.Map;
+
+public record BatchedFrameDto(
+        String destination,
+        String subscription,
+        Map<String, String> headers,
+        String body
+) {
+}
@@ -0,0 +1,8 @@
+package com.pingsocial.dto;
+
+public record ChatAckDto(
+        String clientMessageId,
+        Long id,
+        boolean duplicate
+) {
+}
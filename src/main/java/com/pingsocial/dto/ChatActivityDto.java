@@ -0,0 +1,13 @@
+package com.pingsocial.dto;
+
+import com.pingsocial.models.ChatActivityType;
+
+/**
+ * Indicador de atividade enviado pelo cliente em "/app/typing" ({@code peer} é o destinatário)
+ * e entregue em "/user/queue/typing" ({@code peer} é quem gerou a atividade).
+ */
+public record ChatActivityDto(
+        String peer,
+        ChatActivityType type
+) {
+}
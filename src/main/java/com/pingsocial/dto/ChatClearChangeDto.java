@@ -0,0 +1,7 @@
+package com.pingsocial.dto;
+
+public record ChatClearChangeDto(
+        String peer,
+        Long upToId
+) {
+}
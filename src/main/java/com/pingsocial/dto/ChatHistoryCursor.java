@@ -0,0 +1,35 @@
+package com.pingsocial.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco do histórico do chat de tribo: o ID da última mensagem entregue ao cliente.
+ * A próxima página contém as mensagens de ID menor.
+ */
+public record ChatHistoryCursor(
+        long beforeId
+) {
+
+    public String encode() {
+        String raw = "h:" + beforeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor recebido do cliente.
+     *
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static ChatHistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith("h:")) {
+                throw new IllegalArgumentException("Prefixo ausente");
+            }
+            return new ChatHistoryCursor(Long.parseLong(raw.substring(2)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Cursor do histórico inválido: " + cursor, ex);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.pingsocial.dto;
+
+public record ChatReadChangeDto(
+        String reader,
+        String peer,
+        Long upToId
+) {
+}
@@ -0,0 +1,34 @@
+package com.pingsocial.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da sincronização do chat: a sequência da última alteração entregue ao cliente.
+ */
+public record ChatSyncCursor(
+        long sequence
+) {
+
+    public String encode() {
+        String raw = "s:" + sequence;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor recebido do cliente.
+     *
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static ChatSyncCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith("s:")) {
+                throw new IllegalArgumentException("Prefixo ausente");
+            }
+            return new ChatSyncCursor(Long.parseLong(raw.substring(2)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Cursor de sincronização inválido: " + cursor, ex);
+        }
+    }
+}
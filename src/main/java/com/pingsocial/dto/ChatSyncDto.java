@@ -0,0 +1,19 @@
+package com.pingsocial.dto;
+
+import com.pingsocial.models.ChatMessage;
+
+import java.util.List;
+
+/**
+ * Alterações do chat de um usuário desde um cursor de sincronização.
+ * O cliente deve aplicar as limpezas antes das mensagens e guardar {@code nextCursor}
+ * para a próxima chamada; {@code hasMore} indica que há outra página de alterações.
+ */
+public record ChatSyncDto(
+        List<ChatMessage> messages,
+        List<ChatReadChangeDto> reads,
+        List<ChatClearChangeDto> clears,
+        String nextCursor,
+        boolean hasMore
+) {
+}
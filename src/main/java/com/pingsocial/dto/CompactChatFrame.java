@@ -0,0 +1,14 @@
+package com.pingsocial.dto;
+
+/**
+ * Representação compacta de uma mensagem de chat, com IDs numéricos no lugar dos e-mails.
+ * Serializada em CBOR para clientes que optam pelo formato binário.
+ */
+public record CompactChatFrame(
+        Long id,
+        Long senderId,
+        Long recipientId,
+        String text,
+        String timestamp
+) {
+}
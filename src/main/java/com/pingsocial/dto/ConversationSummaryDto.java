@@ -0,0 +1,13 @@
+package com.pingsocial.dto;
+
+import java.time.LocalDateTime;
+
+public record ConversationSummaryDto(
+        String peer,
+        Long lastMessageId,
+        String lastMessageText,
+        String lastSender,
+        LocalDateTime lastMessageAt,
+        long unreadCount
+) {
+}
@@ -0,0 +1,19 @@
+package com.pingsocial.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por cursor, sem contagem total.
+ *
+ * @param <T> Tipo dos itens
+ */
+public record CursorPageDto<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasNext
+) {
+
+    public static <T> CursorPageDto<T> of(List<T> items, String nextCursor) {
+        return new CursorPageDto<>(items, nextCursor, nextCursor != null);
+    }
+}
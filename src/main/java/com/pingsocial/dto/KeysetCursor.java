@@ -0,0 +1,44 @@
+package com.pingsocial.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de paginação por keyset: a posição (instante, id) do último item retornado.
+ * O instante é codificado com precisão total (segundos e nanossegundos): truncado, a busca
+ * da próxima página pularia as linhas entre o valor truncado e o real.
+ */
+public record KeysetCursor(
+        LocalDateTime at,
+        Long id
+) {
+
+    public String encode() {
+        Instant instant = at.toInstant(ZoneOffset.UTC);
+        String raw = instant.getEpochSecond() + ":" + instant.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor recebido do cliente.
+     *
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Formato inesperado");
+            }
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            long id = Long.parseLong(parts[2]);
+            return new KeysetCursor(LocalDateTime.ofInstant(instant, ZoneOffset.UTC), id);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + cursor, ex);
+        }
+    }
+}
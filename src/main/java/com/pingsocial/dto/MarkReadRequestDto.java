@@ -0,0 +1,17 @@
+package com.pingsocial.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Marca como lidas todas as mensagens recebidas de {@code peer} até a sequência {@code upToId}.
+ */
+public record MarkReadRequestDto(
+        @NotBlank(message = "Usuário da conversa não pode ser vazio")
+        @Email
+        String peer,
+        @NotNull(message = "Sequência da mensagem não pode ser nula")
+        Long upToId
+) {
+}
@@ -0,0 +1,13 @@
+package com.pingsocial.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificação de menção em um post, enviada em lotes para /user/queue/mentions.
+ */
+public record MentionNotificationDto(
+        Long postId,
+        String authorNickname,
+        LocalDateTime createdAt
+) {
+}
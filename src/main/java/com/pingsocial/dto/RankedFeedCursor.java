@@ -0,0 +1,39 @@
+package com.pingsocial.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco do feed ranqueado: quantos posts do ranking já foram entregues ao cliente.
+ * O ranking é recalculado a cada página, então posts podem mudar de posição entre páginas.
+ */
+public record RankedFeedCursor(
+        int offset
+) {
+
+    public String encode() {
+        String raw = "r:" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor recebido do cliente.
+     *
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static RankedFeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith("r:")) {
+                throw new IllegalArgumentException("Prefixo ausente");
+            }
+            int offset = Integer.parseInt(raw.substring(2));
+            if (offset < 0) {
+                throw new IllegalArgumentException("Posição negativa");
+            }
+            return new RankedFeedCursor(offset);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Cursor do feed ranqueado inválido: " + cursor, ex);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.pingsocial.dto;
+
+import java.time.LocalDateTime;
+
+public record ReadReceiptDto(
+        String reader,
+        String peer,
+        Long upToId,
+        int markedCount,
+        LocalDateTime readAt
+) {
+}
@@ -0,0 +1,10 @@
+package com.pingsocial.dto;
+
+/**
+ * Tópico em alta: uma hashtag ("#tag") ou um termo, com a contagem estimada na janela.
+ */
+public record TrendingTopicDto(
+        String topic,
+        long count
+) {
+}
@@ -0,0 +1,7 @@
+package com.pingsocial.dto;
+
+public record UnreadCountDto(
+        String peer,
+        long unreadCount
+) {
+}
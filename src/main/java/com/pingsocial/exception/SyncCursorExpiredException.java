@@ -0,0 +1,8 @@
+package com.pingsocial.exception;
+
+public class SyncCursorExpiredException extends RuntimeException {
+
+    public SyncCursorExpiredException(long sequence) {
+        super("Cursor de sincronização expirado: " + sequence + ". Recarregue as conversas pelo histórico.");
+    }
+}
@@ -0,0 +1,11 @@
+package com.pingsocial.models;
+
+/**
+ * Indicadores efêmeros de atividade em uma conversa. Não são persistidos.
+ */
+public enum ChatActivityType {
+
+    TYPING,
+    STOPPED,
+    SEEN
+}
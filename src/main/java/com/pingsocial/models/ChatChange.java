@@ -0,0 +1,108 @@
+package com.pingsocial.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada do log de alterações do chat de um usuário. A sincronização incremental usa a
+ * sequência ({@code seq}), atribuída depois do commit em ordem de commit; enquanto ela é
+ * nula a entrada ainda não é entregue.
+ */
+@Table(name = "chat_changes_tb")
+@Entity(name = "chat_change")
+public class ChatChange {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long id;
+
+    private String userEmail;
+
+    @Enumerated(EnumType.STRING)
+    private ChatChangeType changeType;
+
+    private String peerEmail;
+
+    private Long messageId;
+
+    private Long upToId;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "seq", insertable = false, updatable = false)
+    private Long sequence;
+
+    public ChatChange() {
+    }
+
+    public ChatChange(String userEmail, ChatChangeType changeType, String peerEmail, Long messageId, Long upToId,
+                      LocalDateTime createdAt) {
+        this.userEmail = userEmail;
+        this.changeType = changeType;
+        this.peerEmail = peerEmail;
+        this.messageId = messageId;
+        this.upToId = upToId;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public ChatChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(ChatChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public String getPeerEmail() {
+        return peerEmail;
+    }
+
+    public void setPeerEmail(String peerEmail) {
+        this.peerEmail = peerEmail;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(Long messageId) {
+        this.messageId = messageId;
+    }
+
+    public Long getUpToId() {
+        return upToId;
+    }
+
+    public void setUpToId(Long upToId) {
+        this.upToId = upToId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
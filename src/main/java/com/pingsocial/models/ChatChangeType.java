@@ -0,0 +1,14 @@
+package com.pingsocial.models;
+
+/**
+ * Tipos de alteração registrados no log de sincronização do chat.
+ */
+public enum ChatChangeType {
+
+    MESSAGE,
+    /** O dono do log leu as mensagens recebidas do peer. */
+    READ,
+    /** O peer leu as mensagens enviadas pelo dono do log. */
+    READ_RECEIPT,
+    CLEAR
+}
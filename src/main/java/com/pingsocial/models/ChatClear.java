@@ -0,0 +1,98 @@
+package com.pingsocial.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marcador de limpeza de uma conversa. As mensagens com ID até {@code clearedUpToId}
+ * deixam de ser visíveis imediatamente e são removidas em segundo plano.
+ * O par de usuários é armazenado em ordem ({@code userA} &lt;= {@code userB}).
+ */
+@Table(name = "chat_clears_tb")
+@Entity(name = "chat_clear")
+public class ChatClear {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long id;
+
+    private String userA;
+
+    private String userB;
+
+    private Long clearedUpToId;
+
+    private String requestedBy;
+
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime purgedAt;
+
+    public ChatClear() {
+    }
+
+    public ChatClear(String userA, String userB, Long clearedUpToId, String requestedBy, LocalDateTime requestedAt) {
+        this.userA = userA;
+        this.userB = userB;
+        this.clearedUpToId = clearedUpToId;
+        this.requestedBy = requestedBy;
+        this.requestedAt = requestedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserA() {
+        return userA;
+    }
+
+    public void setUserA(String userA) {
+        this.userA = userA;
+    }
+
+    public String getUserB() {
+        return userB;
+    }
+
+    public void setUserB(String userB) {
+        this.userB = userB;
+    }
+
+    public Long getClearedUpToId() {
+        return clearedUpToId;
+    }
+
+    public void setClearedUpToId(Long clearedUpToId) {
+        this.clearedUpToId = clearedUpToId;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(LocalDateTime requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public LocalDateTime getPurgedAt() {
+        return purgedAt;
+    }
+
+    public void setPurgedAt(LocalDateTime purgedAt) {
+        this.purgedAt = purgedAt;
+    }
+}
@@ -0,0 +1,128 @@
+package com.pingsocial.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de uma conversa do ponto de vista de um usuário (owner) com outro (peer).
+ */
+@Table(name = "chat_conversations_tb")
+@Entity(name = "chat_conversation")
+public class ChatConversation {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long id;
+
+    private String ownerEmail;
+
+    private String peerEmail;
+
+    private long unreadCount;
+
+    private Long lastReadMessageId;
+
+    private Long lastMessageId;
+
+    private String lastMessageText;
+
+    private String lastSenderEmail;
+
+    private LocalDateTime lastMessageAt;
+
+    private LocalDateTime updatedAt;
+
+    private long messageCount;
+
+    public ChatConversation() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOwnerEmail() {
+        return ownerEmail;
+    }
+
+    public void setOwnerEmail(String ownerEmail) {
+        this.ownerEmail = ownerEmail;
+    }
+
+    public String getPeerEmail() {
+        return peerEmail;
+    }
+
+    public void setPeerEmail(String peerEmail) {
+        this.peerEmail = peerEmail;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public Long getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public void setLastReadMessageId(Long lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastMessageText() {
+        return lastMessageText;
+    }
+
+    public void setLastMessageText(String lastMessageText) {
+        this.lastMessageText = lastMessageText;
+    }
+
+    public String getLastSenderEmail() {
+        return lastSenderEmail;
+    }
+
+    public void setLastSenderEmail(String lastSenderEmail) {
+        this.lastSenderEmail = lastSenderEmail;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(long messageCount) {
+        this.messageCount = messageCount;
+    }
+}
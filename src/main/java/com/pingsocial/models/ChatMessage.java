@@ -1,5 +1,6 @@
 package com.pingsocial.models;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
@@ -17,6 +18,10 @@ public class ChatMessage {
     private String recipient;
     private String timestamp;
     private boolean is_read;
+    @Column(name = "tribe_id")
+    private Long tribeId;
+    @Column(name = "client_message_id", length = 64)
+    private String clientMessageId;
 
     public ChatMessage() {
     }
@@ -77,4 +82,20 @@ public class ChatMessage {
         this.is_read = is_read;
     }
 
+    public Long getTribeId() {
+        return tribeId;
+    }
+
+    public void setTribeId(Long tribeId) {
+        this.tribeId = tribeId;
+    }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+
+    public void setClientMessageId(String clientMessageId) {
+        this.clientMessageId = clientMessageId;
+    }
+
 }
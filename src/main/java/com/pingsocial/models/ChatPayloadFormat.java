@@ -0,0 +1,20 @@
+package com.pingsocial.models;
+
+/**
+ * Formato do payload dos frames de chat entregues a uma sessão STOMP.
+ * O cliente escolhe o formato pelo header "payload-format" do frame CONNECT.
+ */
+public enum ChatPayloadFormat {
+
+    JSON,
+    CBOR;
+
+    public static final String HEADER = "payload-format";
+
+    public static ChatPayloadFormat fromHeader(String value) {
+        if (value != null && value.trim().equalsIgnoreCase("cbor")) {
+            return CBOR;
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,140 @@
+package com.pingsocial.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * E-mail aguardando envio (ou já enviado) pela fila de saída.
+ */
+@Table(name = "email_outbox_tb")
+@Entity(name = "email_outbox")
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long id;
+
+    private String recipient;
+
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    private EmailOutboxStatus status;
+
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime lockedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    public EmailOutbox() {
+    }
+
+    public EmailOutbox(String recipient, String subject, String body, LocalDateTime createdAt) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.status = EmailOutboxStatus.PENDING;
+        this.nextAttemptAt = createdAt;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public EmailOutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(EmailOutboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getLockedAt() {
+        return lockedAt;
+    }
+
+    public void setLockedAt(LocalDateTime lockedAt) {
+        this.lockedAt = lockedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.pingsocial.models;
+
+public enum EmailOutboxStatus {
+
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,65 @@
+package com.pingsocial.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mensagem aguardando entrega a um destinatário offline, gravada quando a fila
+ * em memória do destinatário está cheia.
+ */
+@Table(name = "chat_pending_deliveries_tb")
+@Entity(name = "pending_delivery")
+public class PendingDelivery {
+
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long id;
+
+    private String recipient;
+
+    private Long messageId;
+
+    private LocalDateTime createdAt;
+
+    public PendingDelivery() {
+    }
+
+    public PendingDelivery(String recipient, Long messageId, LocalDateTime createdAt) {
+        this.recipient = recipient;
+        this.messageId = messageId;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(Long messageId) {
+        this.messageId = messageId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
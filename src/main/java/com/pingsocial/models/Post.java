@@ -19,10 +19,12 @@ public class Post {
     private User author;
 
     @ManyToMany
+    // posts_tb é particionada (V25) e não aceita chave estrangeira apenas por id
     @JoinTable(
             name = "post_tribes",
             joinColumns = @JoinColumn(name = "post_id"),
-            inverseJoinColumns = @JoinColumn(name = "tribe_id")
+            inverseJoinColumns = @JoinColumn(name = "tribe_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)
     )
     private Set<Tribe> tribes = new HashSet<>();
 
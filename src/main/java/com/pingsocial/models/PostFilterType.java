@@ -5,7 +5,8 @@ public enum PostFilterType {
     ALL("Todos"),
     MY_POSTS("Meus Posts"),
     TRIBE_POSTS("Posts da Minha Tribo"),
-    FRIENDS_POSTS("Posts dos Meus Amigos");
+    FRIENDS_POSTS("Posts dos Meus Amigos"),
+    RANKED("Posts Recomendados");
 
     private final String description;
 
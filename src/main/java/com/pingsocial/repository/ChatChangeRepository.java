@@ -0,0 +1,20 @@
+package com.pingsocial.repository;
+
+import com.pingsocial.models.ChatChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ChatChangeRepository extends JpaRepository<ChatChange, Long> {
+
+    @Query("SELECT c FROM chat_change c WHERE c.userEmail = :userEmail AND c.sequence > :since ORDER BY c.sequence ASC")
+    List<ChatChange> findChangesSince(String userEmail, Long since, Limit limit);
+
+    @Query("SELECT MAX(c.sequence) FROM chat_change c WHERE c.userEmail = :userEmail")
+    Long findLatestSequence(String userEmail);
+
+    @Query(value = "SELECT pruned_up_to FROM chat_sync_watermarks_tb WHERE user_email = :userEmail", nativeQuery = true)
+    Long findPrunedUpTo(String userEmail);
+}
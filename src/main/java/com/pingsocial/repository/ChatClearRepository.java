@@ -0,0 +1,16 @@
+package com.pingsocial.repository;
+
+import com.pingsocial.models.ChatClear;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ChatClearRepository extends JpaRepository<ChatClear, Long> {
+
+    @Query("SELECT MAX(c.clearedUpToId) FROM chat_clear c WHERE c.userA = :userA AND c.userB = :userB")
+    Long findClearedUpToId(String userA, String userB);
+
+    List<ChatClear> findByPurgedAtIsNullOrderByIdAsc(Limit limit);
+}
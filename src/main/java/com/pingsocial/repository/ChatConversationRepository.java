@@ -0,0 +1,60 @@
+package com.pingsocial.repository;
+
+import com.pingsocial.models.ChatConversation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChatConversationRepository extends JpaRepository<ChatConversation, Long> {
+
+    List<ChatConversation> findByOwnerEmail(String ownerEmail);
+
+    Optional<ChatConversation> findByOwnerEmailAndPeerEmail(String ownerEmail, String peerEmail);
+
+    @Query("SELECT c FROM chat_conversation c WHERE c.ownerEmail = :owner AND c.lastMessageAt IS NOT NULL " +
+            "ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<ChatConversation> findInbox(String owner, Limit limit);
+
+    @Query("SELECT c FROM chat_conversation c WHERE c.ownerEmail = :owner AND c.lastMessageAt IS NOT NULL " +
+            "AND (c.lastMessageAt < :at OR (c.lastMessageAt = :at AND c.id < :id)) " +
+            "ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<ChatConversation> findInboxAfter(String owner, LocalDateTime at, Long id, Limit limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO chat_conversations_tb " +
+            "(owner_email, peer_email, unread_count, message_count, last_message_id, last_message_text, last_sender_email, last_message_at, updated_at) " +
+            "VALUES (:owner, :peer, :unreadDelta, 1, :messageId, :text, :sender, :sentAt, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (owner_email, peer_email) DO UPDATE " +
+            "SET unread_count = chat_conversations_tb.unread_count + EXCLUDED.unread_count, " +
+            "message_count = chat_conversations_tb.message_count + 1, " +
+            "last_message_id = EXCLUDED.last_message_id, " +
+            "last_message_text = EXCLUDED.last_message_text, " +
+            "last_sender_email = EXCLUDED.last_sender_email, " +
+            "last_message_at = EXCLUDED.last_message_at, " +
+            "updated_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    void upsertLastMessage(String owner, String peer, long unreadDelta, Long messageId, String text,
+                           String sender, LocalDateTime sentAt);
+
+    @Modifying
+    @Query(value = "UPDATE chat_conversations_tb " +
+            "SET unread_count = GREATEST(unread_count - :readCount, 0), " +
+            "last_read_message_id = GREATEST(COALESCE(last_read_message_id, 0), :upToId), " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE owner_email = :owner AND peer_email = :peer",
+            nativeQuery = true)
+    void decrementUnread(String owner, String peer, long readCount, long upToId);
+
+    @Modifying
+    @Query(value = "UPDATE chat_conversations_tb " +
+            "SET unread_count = 0, message_count = 0, last_message_id = NULL, last_message_text = NULL, " +
+            "last_sender_email = NULL, last_message_at = NULL, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE (owner_email = :userA AND peer_email = :userB) OR (owner_email = :userB AND peer_email = :userA)",
+            nativeQuery = true)
+    void resetConversation(String userA, String userB);
+}
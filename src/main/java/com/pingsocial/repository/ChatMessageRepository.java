@@ -1,18 +1,75 @@
 package com.pingsocial.repository;
 
 import com.pingsocial.models.ChatMessage;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * As consultas de uma conversa filtram pela chave da conversa, a mesma expressão usada no
+ * particionamento de chat_messages_tb (V19), para que o Postgres leia uma única partição.
+ * O filtro por remetente/destinatário é mantido para usar os índices da tabela antiga
+ * enquanto a migração para a tabela particionada não termina.
+ */
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
-    void deleteBySenderInAndRecipientIn(List<String> senders, List<String> recipients);
+    String CONVERSATION = "chat_message_conversation_key(sender, recipient, tribe_id) = chat_conversation_key(:userId, :userId2) " +
+            "AND ((sender = :userId AND recipient = :userId2) OR (sender = :userId2 AND recipient = :userId))";
 
-    @Query("SELECT COUNT(c) FROM chat_message c WHERE (c.sender = :userId AND c.recipient = :userId2) OR (c.sender = :userId2 AND c.recipient = :userId)")
-    long countMessagesBetweenUsers(String userId, String userId2);
+    @Query(value = "SELECT MAX(id) FROM chat_messages_tb WHERE " + CONVERSATION, nativeQuery = true)
+    Long findMaxIdBetweenUsers(String userId, String userId2);
 
     List<ChatMessage> findBySenderInAndRecipientInOrderByTimestampAsc(List<String> senders, List<String> recipients, Pageable pageable);
+
+    @Query(value = "SELECT * FROM chat_messages_tb WHERE " + CONVERSATION + " AND id > :afterId ORDER BY timestamp ASC, id ASC",
+            nativeQuery = true)
+    List<ChatMessage> findConversationPage(String userId, String userId2, Long afterId, Pageable pageable);
+
+    @Query(value = "SELECT * FROM chat_messages_tb WHERE " + CONVERSATION + " AND id > :afterId ORDER BY timestamp DESC, id DESC",
+            nativeQuery = true)
+    List<ChatMessage> findConversationTail(String userId, String userId2, Long afterId, Pageable pageable);
+
+    String TRIBE = "chat_message_conversation_key(sender, recipient, tribe_id) = 'tribe:' || CAST(:tribeId AS TEXT) " +
+            "AND tribe_id = :tribeId";
+
+    @Query(value = "SELECT * FROM chat_messages_tb WHERE " + TRIBE + " ORDER BY id DESC", nativeQuery = true)
+    List<ChatMessage> findTribeHistory(Long tribeId, Limit limit);
+
+    @Query(value = "SELECT * FROM chat_messages_tb WHERE " + TRIBE + " AND id < :beforeId ORDER BY id DESC",
+            nativeQuery = true)
+    List<ChatMessage> findTribeHistoryBefore(Long tribeId, Long beforeId, Limit limit);
+
+    @Query(value = "SELECT id FROM chat_messages_tb WHERE " + TRIBE +
+            " AND sender = :sender AND client_message_id = :clientMessageId",
+            nativeQuery = true)
+    Optional<Long> findIdByTribeClientMessageId(String sender, Long tribeId, String clientMessageId);
+
+    @Query(value = "SELECT id FROM chat_messages_tb " +
+            "WHERE chat_message_conversation_key(sender, recipient, tribe_id) = chat_conversation_key(:sender, :recipient) " +
+            "AND sender = :sender AND recipient = :recipient AND client_message_id = :clientMessageId",
+            nativeQuery = true)
+    Optional<Long> findIdByClientMessageId(String sender, String recipient, String clientMessageId);
+
+    List<ChatMessage> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM chat_messages_tb " +
+            "WHERE chat_message_conversation_key(sender, recipient, tribe_id) = chat_conversation_key(:userId, :userId2) " +
+            "AND id IN (SELECT id FROM chat_messages_tb WHERE " + CONVERSATION + " AND id <= :upToId LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteChunkBetweenUsers(String userId, String userId2, Long upToId, int batchSize);
+
+    @Modifying
+    @Query(value = "UPDATE chat_messages_tb SET is_read = true " +
+            "WHERE chat_message_conversation_key(sender, recipient, tribe_id) = chat_conversation_key(:reader, :peer) " +
+            "AND recipient = :reader AND sender = :peer AND id <= :upToId AND is_read = false",
+            nativeQuery = true)
+    int markReadUpTo(String reader, String peer, Long upToId);
 }
@@ -0,0 +1,32 @@
+package com.pingsocial.repository;
+
+import com.pingsocial.models.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Bloqueia os próximos e-mails pendentes. Linhas já bloqueadas por outra instância são puladas.
+     */
+    @Query(value = "SELECT id FROM email_outbox_tb WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDueIds(LocalDateTime now, int limit);
+
+    @Modifying
+    @Query("UPDATE email_outbox e SET e.status = com.pingsocial.models.EmailOutboxStatus.SENDING, e.lockedAt = :now WHERE e.id IN :ids")
+    int markSending(List<Long> ids, LocalDateTime now);
+
+    /**
+     * Devolve à fila e-mails que ficaram em envio (por exemplo, após uma queda da aplicação).
+     */
+    @Modifying
+    @Query("UPDATE email_outbox e SET e.status = com.pingsocial.models.EmailOutboxStatus.PENDING " +
+            "WHERE e.status = com.pingsocial.models.EmailOutboxStatus.SENDING AND e.lockedAt < :before")
+    int releaseStale(LocalDateTime before);
+}
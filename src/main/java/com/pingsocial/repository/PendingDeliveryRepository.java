@@ -0,0 +1,14 @@
+package com.pingsocial.repository;
+
+import com.pingsocial.models.PendingDelivery;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PendingDeliveryRepository extends JpaRepository<PendingDelivery, Long> {
+
+    boolean existsByRecipient(String recipient);
+
+    List<PendingDelivery> findByRecipientOrderByIdAsc(String recipient, Limit limit);
+}
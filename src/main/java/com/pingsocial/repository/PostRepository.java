@@ -4,7 +4,9 @@ import com.pingsocial.models.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
@@ -13,5 +15,66 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     Page<Post> findAll(Pageable pageable);
     Page<Post> findByAuthor_Id(Long authorId, Pageable pageable);
     Page<Post> findByTribes_IdIn(Set<Long> tribeIds, Pageable pageable);
-    Page<Post> findByAuthor_IdIn(List<Long> authorIds, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT p FROM post p JOIN follow f ON f.followed = p.author WHERE f.follower.id = :followerId",
+            countQuery = "SELECT COUNT(p) FROM post p JOIN follow f ON f.followed = p.author WHERE f.follower.id = :followerId")
+    Page<Post> findFollowedPosts(Long followerId, Pageable pageable);
+
+    // Paginação por keyset em (createdAt, id), sem contagem; os índices estão na V22.
+    // As consultas findFeedRows* trazem cada post já com o apelido do autor e os IDs das tribos
+    // (id, nickname, tribe_ids, content, created_at) em um único SELECT, sem carregar entidades.
+
+    String FEED_ROW = "SELECT p.id, u.nickname, " +
+            "(SELECT ARRAY_AGG(pt.tribe_id) FROM post_tribes pt WHERE pt.post_id = p.id) AS tribe_ids, " +
+            "p.content, p.created_at " +
+            "FROM posts_tb p JOIN users_tb u ON u.id = p.user_id ";
+
+    String BEFORE_CURSOR = "(p.created_at < :at OR (p.created_at = :at AND p.id < :id)) ";
+
+    String FOLLOWED_BY = "JOIN follows_tb f ON f.followed_id = p.user_id WHERE f.follower_id = :followerId ";
+
+    String IN_TRIBES = "p.id IN (SELECT pt.post_id FROM post_tribes pt WHERE pt.tribe_id IN (:tribeIds)) ";
+
+    String FEED_ORDER = "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit";
+
+    @Query(value = FEED_ROW + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRows(int limit);
+
+    @Query(value = FEED_ROW + "WHERE " + BEFORE_CURSOR + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsBefore(LocalDateTime at, Long id, int limit);
+
+    @Query(value = FEED_ROW + "WHERE p.user_id = :authorId " + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByAuthor(Long authorId, int limit);
+
+    @Query(value = FEED_ROW + "WHERE p.user_id = :authorId AND " + BEFORE_CURSOR + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByAuthorBefore(Long authorId, LocalDateTime at, Long id, int limit);
+
+    @Query(value = FEED_ROW + "WHERE " + IN_TRIBES + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByTribes(Set<Long> tribeIds, int limit);
+
+    @Query(value = FEED_ROW + "WHERE " + IN_TRIBES + "AND " + BEFORE_CURSOR + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByTribesBefore(Set<Long> tribeIds, LocalDateTime at, Long id, int limit);
+
+    @Query(value = FEED_ROW + FOLLOWED_BY + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByFollower(Long followerId, int limit);
+
+    @Query(value = FEED_ROW + FOLLOWED_BY + "AND " + BEFORE_CURSOR + FEED_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByFollowerBefore(Long followerId, LocalDateTime at, Long id, int limit);
+
+    // Posts de uma tag: a varredura parte do índice (tag, created_at, post_id) de post_tags_tb
+
+    String WITH_TAG = "JOIN post_tags_tb t ON t.post_id = p.id AND t.created_at = p.created_at WHERE t.tag = :tag ";
+
+    String TAG_BEFORE_CURSOR = "(t.created_at < :at OR (t.created_at = :at AND t.post_id < :id)) ";
+
+    String TAG_ORDER = "ORDER BY t.created_at DESC, t.post_id DESC LIMIT :limit";
+
+    @Query(value = FEED_ROW + WITH_TAG + TAG_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByTag(String tag, int limit);
+
+    @Query(value = FEED_ROW + WITH_TAG + "AND " + TAG_BEFORE_CURSOR + TAG_ORDER, nativeQuery = true)
+    List<Object[]> findFeedRowsByTagBefore(String tag, LocalDateTime at, Long id, int limit);
+
+    @Query(value = FEED_ROW + "WHERE p.id IN (:ids)", nativeQuery = true)
+    List<Object[]> findFeedRowsByIds(List<Long> ids);
+}
@@ -2,9 +2,11 @@ package com.pingsocial.repository;
 
 import com.pingsocial.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,4 +15,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT u.id FROM user u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(String email);
+
+    @Query("SELECT t.id FROM user u JOIN u.tribes t WHERE u.email = :email")
+    Set<Long> findTribeIdsByEmail(String email);
+
 }
@@ -0,0 +1,98 @@
+package com.pingsocial.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autores com muitos seguidores e a lista de posts recentes de cada um.
+ * <p>
+ * Os posts desses autores não são gravados na timeline de cada seguidor; ficam em uma
+ * lista em memória por autor e são intercalados na leitura da timeline. O conjunto de
+ * autores é recalculado periodicamente a partir de follows_tb
+ * ({@code pingsocial.feed.celebrity.follower-threshold}) pelo {@link HomeTimelineService}, que
+ * grava nas timelines dos seguidores os posts recentes de quem cai abaixo do limite.
+ */
+@Service
+public class AuthorHotListService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorHotListService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, PostRing> hotLists = new ConcurrentHashMap<>();
+    private volatile Set<Long> celebrities = Set.of();
+
+    @Value("${pingsocial.feed.celebrity.follower-threshold:10000}")
+    private long followerThreshold;
+
+    @Value("${pingsocial.feed.celebrity.hot-list-size:200}")
+    private int hotListSize;
+
+    public AuthorHotListService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("pingsocial.feed.celebrities", this, service -> service.celebrities.size())
+                .description("Autores acima do limite de seguidores, sem distribuição na escrita")
+                .register(meterRegistry);
+    }
+
+    public boolean isCelebrity(Long authorId) {
+        return celebrities.contains(authorId);
+    }
+
+    public Set<Long> celebrities() {
+        return celebrities;
+    }
+
+    public void add(Long authorId, long postId, long createdAtMillis) {
+        hotList(authorId).add(postId, createdAtMillis);
+    }
+
+    public PostRing hotList(Long authorId) {
+        return hotLists.computeIfAbsent(authorId, this::load);
+    }
+
+    public int hotListSize() {
+        return hotListSize;
+    }
+
+    /**
+     * Consulta os autores acima do limite de seguidores.
+     */
+    public Set<Long> findCelebrities() {
+        return Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT followed_id FROM follows_tb GROUP BY followed_id HAVING COUNT(*) >= ?",
+                Long.class, followerThreshold));
+    }
+
+    /**
+     * Troca o conjunto de autores com muitos seguidores e descarta as listas de quem saiu dele.
+     */
+    public void replaceCelebrities(Set<Long> current) {
+        celebrities = current;
+        hotLists.keySet().retainAll(current);
+        logger.debug("Autores com muitos seguidores: {}", current.size());
+    }
+
+    private PostRing load(Long authorId) {
+        PostRing ring = new PostRing(hotListSize);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, created_at FROM posts_tb WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT ?",
+                authorId, hotListSize);
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            Map<String, Object> row = rows.get(i);
+            ring.add(((Number) row.get("id")).longValue(), ((Timestamp) row.get("created_at")).getTime());
+        }
+        logger.debug("Lista de posts recentes do autor {} carregada com {} posts", authorId, rows.size());
+        return ring;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.ChatActivityDto;
+import com.pingsocial.models.ChatActivityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repassa indicadores de digitação e visualização entre os participantes de uma conversa.
+ * <p>
+ * Os eventos não passam pelo banco, pela fila de entregas pendentes nem pelo e-mail: se o
+ * destinatário estiver offline são simplesmente descartados. Cada par remetente/destinatário
+ * emite no máximo um evento por intervalo; eventos recebidos dentro do intervalo são
+ * agrupados e apenas o último estado é enviado ao fim dele.
+ */
+@Service
+public class ChatActivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatActivityService.class);
+
+    public static final String ACTIVITY_DESTINATION = "/queue/typing";
+
+    private final SimpMessagingTemplate template;
+    private final TaskScheduler taskScheduler;
+    private final Map<String, PairState> pairs = new ConcurrentHashMap<>();
+
+    @Value("${pingsocial.chat.activity.min-interval-ms:300}")
+    private long minIntervalMs;
+
+    @Value("${pingsocial.chat.activity.idle-ttl-ms:60000}")
+    private long idleTtlMs;
+
+    public ChatActivityService(SimpMessagingTemplate template, @Qualifier("taskScheduler") TaskScheduler taskScheduler) {
+        this.template = template;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Publica a atividade de {@code sender} para {@code recipient}, respeitando o intervalo mínimo do par.
+     */
+    public void publish(String sender, String recipient, ChatActivityType type) {
+        PairState state = pairs.computeIfAbsent(sender + '\n' + recipient, key -> new PairState());
+        long now = System.currentTimeMillis();
+
+        synchronized (state) {
+            state.touchedAt = now;
+            if (!state.trailingScheduled && now - state.emittedAt >= minIntervalMs) {
+                state.emittedAt = now;
+            } else {
+                state.pending = type;
+                if (!state.trailingScheduled) {
+                    state.trailingScheduled = true;
+                    taskScheduler.schedule(() -> emitTrailing(sender, recipient, state),
+                            Instant.ofEpochMilli(state.emittedAt + minIntervalMs));
+                }
+                return;
+            }
+        }
+
+        emit(sender, recipient, type);
+    }
+
+    private void emitTrailing(String sender, String recipient, PairState state) {
+        ChatActivityType type;
+        synchronized (state) {
+            type = state.pending;
+            state.pending = null;
+            state.trailingScheduled = false;
+            state.emittedAt = System.currentTimeMillis();
+        }
+        if (type != null) {
+            emit(sender, recipient, type);
+        }
+    }
+
+    private void emit(String sender, String recipient, ChatActivityType type) {
+        try {
+            template.convertAndSendToUser(recipient, ACTIVITY_DESTINATION, new ChatActivityDto(sender, type));
+        } catch (Exception ex) {
+            logger.debug("Erro ao enviar atividade de {} para {}: {}", sender, recipient, ex.getMessage());
+        }
+    }
+
+    /**
+     * Remove o estado de pares sem atividade recente.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.chat.activity.idle-ttl-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        pairs.values().removeIf(state -> {
+            synchronized (state) {
+                return !state.trailingScheduled && state.touchedAt < cutoff;
+            }
+        });
+    }
+
+    private static final class PairState {
+
+        private long emittedAt;
+        private long touchedAt;
+        private ChatActivityType pending;
+        private boolean trailingScheduled;
+    }
+}
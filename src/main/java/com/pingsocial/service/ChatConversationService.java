@@ -0,0 +1,317 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.ConversationSummaryDto;
+import com.pingsocial.dto.CursorPageDto;
+import com.pingsocial.dto.KeysetCursor;
+import com.pingsocial.dto.ReadReceiptDto;
+import com.pingsocial.dto.UnreadCountDto;
+import com.pingsocial.models.ChatConversation;
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.repository.ChatConversationRepository;
+import com.pingsocial.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Mantém o estado de cada conversa por usuário: resumo da última mensagem e contador de não lidas.
+ * <p>
+ * O estado é gravado na tabela desnormalizada chat_conversations_tb a cada envio, de modo que
+ * a caixa de entrada e a contagem de badges nunca precisam consultar chat_messages_tb.
+ * Os contadores de não lidas também ficam em memória, carregados sob demanda por usuário; as
+ * alterações só são aplicadas a eles depois do commit da transação que alterou a tabela.
+ */
+@Service
+public class ChatConversationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatConversationService.class);
+
+    public static final String READ_DESTINATION = "/queue/read";
+    public static final String UNREAD_DESTINATION = "/queue/unread";
+
+    private final ChatConversationRepository chatConversationRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final SimpMessagingTemplate template;
+    private final ConversationTailCache conversationTailCache;
+    private final ChatSyncService chatSyncService;
+    private final Map<String, Map<String, AtomicLong>> counters;
+    // Guardados pelo lock de counters: transações abertas que alteram os contadores de cada
+    // usuário e cargas em andamento (marcadas quando uma dessas transações termina)
+    private final Map<String, Integer> pendingChanges = new HashMap<>();
+    private final Map<String, boolean[]> loading = new HashMap<>();
+
+    public ChatConversationService(ChatConversationRepository chatConversationRepository,
+                                ChatMessageRepository chatMessageRepository,
+                                SimpMessagingTemplate template,
+                                ConversationTailCache conversationTailCache,
+                                ChatSyncService chatSyncService,
+                                @Value("${pingsocial.chat.unread.cached-users:10000}") int cachedUsers) {
+        this.chatConversationRepository = chatConversationRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.template = template;
+        this.conversationTailCache = conversationTailCache;
+        this.chatSyncService = chatSyncService;
+        this.counters = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, AtomicLong>> eldest) {
+                return size() > cachedUsers;
+            }
+        });
+    }
+
+    /**
+     * Atualiza o resumo da conversa dos dois lados e incrementa o contador de não lidas
+     * do destinatário.
+     */
+    @Transactional
+    public void onMessageStored(ChatMessage message) {
+        String sender = message.getSender();
+        String recipient = message.getRecipient();
+        if (sender == null || recipient == null) {
+            return;
+        }
+
+        // As duas linhas são travadas sempre na mesma ordem (menor email primeiro): mensagens
+        // simultâneas A→B e B→A em ordem inversa formariam um deadlock
+        LocalDateTime sentAt = LocalDateTime.now();
+        if (sender.compareTo(recipient) <= 0) {
+            chatConversationRepository.upsertLastMessage(sender, recipient, 0, message.getId(), message.getText(), sender, sentAt);
+            chatConversationRepository.upsertLastMessage(recipient, sender, 1, message.getId(), message.getText(), sender, sentAt);
+        } else {
+            chatConversationRepository.upsertLastMessage(recipient, sender, 1, message.getId(), message.getText(), sender, sentAt);
+            chatConversationRepository.upsertLastMessage(sender, recipient, 0, message.getId(), message.getText(), sender, sentAt);
+        }
+        chatSyncService.recordMessage(message);
+
+        changeCountersAfterCommit(recipient,
+                ownerCounters -> ownerCounters.computeIfAbsent(sender, key -> new AtomicLong()).incrementAndGet());
+    }
+
+    /**
+     * Lista as conversas do usuário em ordem de recência, paginadas por cursor.
+     *
+     * @param owner  Email do usuário
+     * @param cursor Cursor opaco retornado pela página anterior (ou null para a primeira página)
+     * @param size   Quantidade máxima de conversas
+     * @return Página de resumos de conversa
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<ConversationSummaryDto> getConversations(String owner, String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<ChatConversation> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = chatConversationRepository.findInbox(owner, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = chatConversationRepository.findInboxAfter(owner, position.at(), position.id(), limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<ChatConversation> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ChatConversation last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getLastMessageAt(), last.getId()).encode();
+        }
+
+        Map<String, AtomicLong> ownerCounters = countersOf(owner);
+        List<ConversationSummaryDto> items = page.stream()
+                .map(conversation -> {
+                    AtomicLong unread = ownerCounters.get(conversation.getPeerEmail());
+                    return new ConversationSummaryDto(
+                            conversation.getPeerEmail(),
+                            conversation.getLastMessageId(),
+                            conversation.getLastMessageText(),
+                            conversation.getLastSenderEmail(),
+                            conversation.getLastMessageAt(),
+                            unread != null ? unread.get() : conversation.getUnreadCount()
+                    );
+                })
+                .toList();
+
+        logger.info("Caixa de entrada de {}: {} conversas (próxima página: {})", owner, items.size(), hasNext);
+        return CursorPageDto.of(items, nextCursor);
+    }
+
+    /**
+     * Marca como lidas, com um único UPDATE, todas as mensagens de {@code peer} para {@code reader}
+     * até {@code upToId}, atualiza o contador e, depois do commit, notifica os dois lados via STOMP.
+     */
+    @Transactional
+    public ReadReceiptDto markRead(String reader, String peer, Long upToId) {
+        if (reader == null || peer == null || upToId == null) {
+            throw new IllegalArgumentException("Usuário, conversa e sequência não podem ser nulos");
+        }
+
+        int marked = chatMessageRepository.markReadUpTo(reader, peer, upToId);
+        logger.info("{} mensagens de {} marcadas como lidas por {} até {}", marked, peer, reader, upToId);
+
+        if (marked > 0) {
+            chatConversationRepository.decrementUnread(reader, peer, marked, upToId);
+            conversationTailCache.markRead(reader, peer, upToId);
+            chatSyncService.recordRead(reader, peer, upToId);
+            changeCountersAfterCommit(reader, ownerCounters -> ownerCounters
+                    .computeIfAbsent(peer, key -> new AtomicLong())
+                    .updateAndGet(value -> Math.max(value - marked, 0)));
+        }
+
+        ReadReceiptDto receipt = new ReadReceiptDto(reader, peer, upToId, marked, LocalDateTime.now());
+        runAfterCommit(() -> {
+            try {
+                template.convertAndSendToUser(peer, READ_DESTINATION, receipt);
+                template.convertAndSendToUser(reader, UNREAD_DESTINATION,
+                        new UnreadCountDto(peer, getUnreadCount(reader, peer)));
+            } catch (Exception ex) {
+                logger.error("Erro ao publicar confirmação de leitura de {} para {}: {}", reader, peer, ex.getMessage(), ex);
+            }
+        });
+
+        return receipt;
+    }
+
+    /**
+     * Zera o estado da conversa dos dois lados após a limpeza do histórico.
+     */
+    @Transactional
+    public void onConversationCleared(String userA, String userB, Long clearedUpToId) {
+        chatConversationRepository.resetConversation(userA, userB);
+        chatSyncService.recordClear(userA, userB, clearedUpToId);
+        changeCountersAfterCommit(userA, ownerCounters -> ownerCounters.remove(userB));
+        changeCountersAfterCommit(userB, ownerCounters -> ownerCounters.remove(userA));
+        conversationTailCache.invalidate(userA, userB);
+    }
+
+    /**
+     * Obtém os contadores de não lidas do usuário, por conversa.
+     */
+    public List<UnreadCountDto> getUnreadCounts(String owner) {
+        return countersOf(owner).entrySet().stream()
+                .filter(entry -> entry.getValue().get() > 0)
+                .map(entry -> new UnreadCountDto(entry.getKey(), entry.getValue().get()))
+                .toList();
+    }
+
+    /**
+     * Aplica a alteração aos contadores em memória do usuário depois do commit (e não a aplica
+     * em caso de rollback). Até lá a transação conta como pendente para o usuário: o valor lido
+     * do banco por uma carga concorrente pode ou não incluir a alteração, então essa carga não
+     * fica em cache.
+     */
+    private void changeCountersAfterCommit(String owner, Consumer<Map<String, AtomicLong>> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (counters) {
+                markLoadsStale(owner);
+                Map<String, AtomicLong> ownerCounters = counters.get(owner);
+                if (ownerCounters != null) {
+                    change.accept(ownerCounters);
+                }
+            }
+            return;
+        }
+
+        synchronized (counters) {
+            pendingChanges.merge(owner, 1, Integer::sum);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (counters) {
+                    pendingChanges.computeIfPresent(owner, (key, count) -> count > 1 ? count - 1 : null);
+                    markLoadsStale(owner);
+                    Map<String, AtomicLong> ownerCounters = counters.get(owner);
+                    if (status == STATUS_COMMITTED && ownerCounters != null) {
+                        change.accept(ownerCounters);
+                    }
+                }
+            }
+        });
+    }
+
+    private void markLoadsStale(String owner) {
+        boolean[] stale = loading.get(owner);
+        if (stale != null) {
+            stale[0] = true;
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private long getUnreadCount(String owner, String peer) {
+        AtomicLong counter = countersOf(owner).get(peer);
+        return counter != null ? counter.get() : 0L;
+    }
+
+    /**
+     * Obtém os contadores do usuário, carregando-os do banco se não estiverem em memória. A carga
+     * só fica em cache se nenhuma alteração dos contadores do usuário estava pendente ou terminou
+     * durante a leitura; caso contrário é usada apenas nesta chamada.
+     */
+    private Map<String, AtomicLong> countersOf(String owner) {
+        boolean[] stale = new boolean[1];
+        boolean registered;
+        synchronized (counters) {
+            Map<String, AtomicLong> ownerCounters = counters.get(owner);
+            if (ownerCounters != null) {
+                return ownerCounters;
+            }
+            registered = loading.putIfAbsent(owner, stale) == null;
+        }
+
+        Map<String, AtomicLong> loaded = new ConcurrentHashMap<>();
+        try {
+            for (ChatConversation conversation : chatConversationRepository.findByOwnerEmail(owner)) {
+                loaded.put(conversation.getPeerEmail(), new AtomicLong(conversation.getUnreadCount()));
+            }
+        } catch (RuntimeException ex) {
+            if (registered) {
+                synchronized (counters) {
+                    loading.remove(owner);
+                }
+            }
+            throw ex;
+        }
+        logger.debug("Contadores de não lidas carregados para {}: {} conversas", owner, loaded.size());
+
+        synchronized (counters) {
+            if (registered) {
+                loading.remove(owner);
+            }
+            Map<String, AtomicLong> existing = counters.get(owner);
+            if (existing != null) {
+                return existing;
+            }
+            if (registered && !stale[0] && !pendingChanges.containsKey(owner)) {
+                counters.put(owner, loaded);
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,172 @@
+package com.pingsocial.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.pingsocial.config.ChatPayloadFormatInterceptor;
+import com.pingsocial.config.TribeSubscriptionInterceptor;
+import com.pingsocial.dto.ChatAckDto;
+import com.pingsocial.dto.CompactChatFrame;
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.models.ChatPayloadFormat;
+import com.pingsocial.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entrega mensagens de chat às sessões do destinatário no formato negociado por cada sessão.
+ */
+@Service
+public class ChatDeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatDeliveryService.class);
+
+    public static final String MESSAGES_DESTINATION = "/queue/messages";
+    public static final String ACK_DESTINATION = "/queue/ack";
+
+    private static final int USER_ID_CACHE_LIMIT = 10_000;
+
+    private final SimpMessagingTemplate template;
+    private final SimpUserRegistry userRegistry;
+    private final ChatPayloadFormatInterceptor payloadFormats;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final PendingDeliveryService pendingDeliveryService;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final Map<String, Long> userIdCache = new ConcurrentHashMap<>();
+
+    public ChatDeliveryService(SimpMessagingTemplate template, SimpUserRegistry userRegistry,
+                               ChatPayloadFormatInterceptor payloadFormats, UserRepository userRepository,
+                               ObjectMapper objectMapper, PendingDeliveryService pendingDeliveryService) {
+        this.template = template;
+        this.userRegistry = userRegistry;
+        this.payloadFormats = payloadFormats;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.pendingDeliveryService = pendingDeliveryService;
+    }
+
+    /**
+     * Envia a mensagem para todas as sessões do destinatário. Sessões JSON recebem a entidade
+     * serializada normalmente; sessões CBOR recebem um {@link CompactChatFrame} codificado uma única vez.
+     * Se o destinatário estiver offline, a mensagem vai para a fila de entregas pendentes.
+     */
+    public void deliver(ChatMessage message) {
+        String recipient = message.getRecipient();
+        if (!pendingDeliveryService.isOnline(recipient)) {
+            pendingDeliveryService.enqueue(message);
+            return;
+        }
+
+        SimpUser user = payloadFormats.hasCompactSessions() ? userRegistry.getUser(recipient) : null;
+
+        if (user == null || user.getSessions().stream()
+                .allMatch(session -> payloadFormats.formatOf(session.getId()) == ChatPayloadFormat.JSON)) {
+            template.convertAndSendToUser(recipient, MESSAGES_DESTINATION, message);
+            return;
+        }
+
+        byte[] compact = null;
+        for (SimpSession session : user.getSessions()) {
+            if (payloadFormats.formatOf(session.getId()) == ChatPayloadFormat.CBOR) {
+                if (compact == null) {
+                    compact = encodeCompact(message);
+                }
+                template.convertAndSendToUser(recipient, MESSAGES_DESTINATION, compact,
+                        sessionHeaders(session.getId(), ChatPayloadFormat.CBOR));
+            } else {
+                template.convertAndSendToUser(recipient, MESSAGES_DESTINATION, message,
+                        sessionHeaders(session.getId(), ChatPayloadFormat.JSON));
+            }
+        }
+    }
+
+    /**
+     * Confirma ao remetente o recebimento de um envio, com a sequência atribuída pelo servidor.
+     */
+    public void acknowledge(String sender, ChatAckDto ack) {
+        template.convertAndSendToUser(sender, ACK_DESTINATION, ack);
+    }
+
+    /**
+     * Publica uma mensagem de tribo em "/topic/tribe/{tribeId}". O JSON é gerado uma única vez e
+     * o broker repassa o mesmo array de bytes para todas as inscrições do tópico, sem nova
+     * conversão por sessão.
+     */
+    public void deliverToTribe(ChatMessage message) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Erro ao serializar mensagem da tribo", ex);
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        template.send(TribeSubscriptionInterceptor.TRIBE_TOPIC_PREFIX + message.getTribeId(),
+                MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    private byte[] encodeCompact(ChatMessage message) {
+        CompactChatFrame frame = new CompactChatFrame(
+                message.getId(),
+                resolveUserId(message.getSender()),
+                resolveUserId(message.getRecipient()),
+                message.getText(),
+                message.getTimestamp()
+        );
+        try {
+            return cborMapper.writeValueAsBytes(frame);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Erro ao serializar mensagem em CBOR", ex);
+        }
+    }
+
+    private Long resolveUserId(String email) {
+        if (email == null) {
+            return null;
+        }
+        Long cached = userIdCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        Long id = userRepository.findIdByEmail(email).orElse(null);
+        if (id != null) {
+            if (userIdCache.size() >= USER_ID_CACHE_LIMIT) {
+                logger.debug("Cache de IDs de usuário cheio, limpando");
+                userIdCache.clear();
+            }
+            userIdCache.put(email, id);
+        }
+        return id;
+    }
+
+    /**
+     * Headers que direcionam o envio a uma única sessão do usuário.
+     * Frames CBOR usam application/octet-stream para que o STOMP os envie como frames binários.
+     */
+    private MessageHeaders sessionHeaders(String sessionId, ChatPayloadFormat format) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        if (format == ChatPayloadFormat.CBOR) {
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(ChatPayloadFormat.HEADER, "cbor");
+        }
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
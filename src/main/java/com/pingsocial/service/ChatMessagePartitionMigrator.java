@@ -0,0 +1,103 @@
+package com.pingsocial.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia as mensagens de chat_messages_tb para a tabela particionada por conversa
+ * (chat_messages_part_tb, criada na V19) com a aplicação em funcionamento.
+ * <p>
+ * Cada execução copia um lote de IDs em sua própria transação, bloqueando apenas as linhas
+ * do lote para que uma atualização concorrente espere a cópia e seja espelhada depois dela.
+ * O progresso fica em chat_partition_migration_tb, então a cópia continua de onde parou após
+ * um reinício. Terminada a cópia, as tabelas são trocadas em uma única transação e
+ * chat_messages_tb passa a ser a tabela particionada; a antiga fica como chat_messages_legacy_tb.
+ * Desabilitado por padrão ({@code pingsocial.chat.partition-migration.enabled}).
+ */
+@Service
+public class ChatMessagePartitionMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessagePartitionMigrator.class);
+
+    private static final String COLUMNS = "id, text, sender, recipient, timestamp, is_read, tribe_id, client_message_id";
+
+    private static final String COPY_BATCH = "INSERT INTO chat_messages_part_tb (" + COLUMNS + ") " +
+            "SELECT " + COLUMNS + " FROM chat_messages_tb WHERE id > ? AND id <= ? ORDER BY id FOR UPDATE " +
+            "ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean finished;
+
+    @Value("${pingsocial.chat.partition-migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${pingsocial.chat.partition-migration.batch-size:5000}")
+    private int batchSize;
+
+    public ChatMessagePartitionMigrator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${pingsocial.chat.partition-migration.interval-ms:1000}")
+    public void migrateBatch() {
+        if (!enabled || finished) {
+            return;
+        }
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT last_copied_id, target_max_id, swapped_at FROM chat_partition_migration_tb WHERE id = 1");
+        if (rows.isEmpty() || rows.get(0).get("swapped_at") != null) {
+            finished = true;
+            logger.info("Migração das mensagens para a tabela particionada já concluída");
+            return;
+        }
+
+        long lastCopiedId = ((Number) rows.get(0).get("last_copied_id")).longValue();
+        long targetMaxId = ((Number) rows.get(0).get("target_max_id")).longValue();
+        if (lastCopiedId < targetMaxId) {
+            copyBatch(lastCopiedId, Math.min(lastCopiedId + batchSize, targetMaxId), targetMaxId);
+            return;
+        }
+
+        swap();
+        finished = true;
+    }
+
+    private void copyBatch(long fromId, long toId, long targetMaxId) {
+        Integer copied = transactionTemplate.execute(status -> {
+            int inserted = jdbcTemplate.update(COPY_BATCH, fromId, toId);
+            jdbcTemplate.update("UPDATE chat_partition_migration_tb SET last_copied_id = ?, updated_at = now() WHERE id = 1", toId);
+            return inserted;
+        });
+        logger.info("Mensagens {} a {} copiadas para a tabela particionada ({} linhas, alvo {})",
+                fromId + 1, toId, copied, targetMaxId);
+    }
+
+    /**
+     * Troca as tabelas. O bloqueio exclusivo garante que nenhuma escrita aconteça entre a
+     * remoção da trigger e a renomeação; a sequência da nova tabela continua após o maior ID.
+     */
+    private void swap() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE chat_messages_tb IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS chat_messages_mirror_trg ON chat_messages_tb");
+            jdbcTemplate.queryForObject("SELECT setval('chat_messages_part_id_seq', " +
+                    "GREATEST((SELECT COALESCE(MAX(id), 0) FROM chat_messages_tb), 1))", Long.class);
+            jdbcTemplate.execute("ALTER TABLE chat_messages_tb RENAME TO chat_messages_legacy_tb");
+            jdbcTemplate.execute("ALTER TABLE chat_messages_part_tb RENAME TO chat_messages_tb");
+            jdbcTemplate.update("UPDATE chat_partition_migration_tb SET swapped_at = now(), updated_at = now() WHERE id = 1");
+        });
+        logger.info("Tabela de mensagens particionada ativada; tabela anterior mantida como chat_messages_legacy_tb");
+    }
+}
@@ -0,0 +1,347 @@
+package com.pingsocial.service;
+
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.repository.ChatMessageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Busca no histórico de conversas através de um índice invertido em memória, por usuário.
+ * <p>
+ * Cada mensagem entra no índice do remetente e do destinatário no momento em que é salva.
+ * Os índices alterados são gravados periodicamente em disco (um segmento por usuário) junto
+ * com o último ID indexado; na inicialização os segmentos são carregados e apenas as
+ * mensagens posteriores a esse ID são lidas do banco.
+ */
+@Service
+public class ChatSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSearchService.class);
+
+    private static final int SEGMENT_MAGIC = 0x50534958;
+    private static final int SEGMENT_VERSION = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String MANIFEST_FILE = "manifest";
+    private static final int CATCH_UP_BATCH_SIZE = 1000;
+
+    /**
+     * Margem relida do banco na recuperação: mensagens salvas em paralelo podem ter sido
+     * indexadas fora de ordem antes da última gravação. Reindexar é idempotente.
+     */
+    private static final long CATCH_UP_OVERLAP = 1000;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ConversationPurgeService conversationPurgeService;
+    private final Map<String, UserIndex> indexes = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong indexedUpToId = new AtomicLong();
+
+    @Value("${pingsocial.chat.search.index-dir:data/chat-search}")
+    private String indexDir;
+
+    @Value("${pingsocial.chat.search.max-results:50}")
+    private int maxResults;
+
+    public ChatSearchService(ChatMessageRepository chatMessageRepository,
+                             ConversationPurgeService conversationPurgeService) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.conversationPurgeService = conversationPurgeService;
+    }
+
+    /**
+     * Adiciona uma mensagem salva aos índices do remetente e do destinatário.
+     * Mensagens de tribo não entram no índice.
+     */
+    public void index(ChatMessage message) {
+        if (message.getId() == null || message.getTribeId() != null) {
+            return;
+        }
+
+        Set<String> terms = ChatTextTokenizer.tokenize(message.getText());
+        if (!terms.isEmpty()) {
+            addToIndex(message.getSender(), terms, message.getId());
+            if (message.getRecipient() != null && !message.getRecipient().equals(message.getSender())) {
+                addToIndex(message.getRecipient(), terms, message.getId());
+            }
+        }
+        indexedUpToId.accumulateAndGet(message.getId(), Math::max);
+    }
+
+    /**
+     * Busca mensagens do usuário que contenham todos os termos da consulta,
+     * das mais recentes para as mais antigas.
+     *
+     * @param owner Email do usuário que está buscando
+     * @param query Texto da busca
+     * @param peer  Email do outro participante, para restringir a uma conversa (opcional)
+     * @param limit Quantidade máxima de resultados
+     */
+    public List<ChatMessage> search(String owner, String query, String peer, int limit) {
+        Set<String> terms = ChatTextTokenizer.tokenize(query);
+        UserIndex index = indexes.get(owner);
+        if (terms.isEmpty() || index == null) {
+            return List.of();
+        }
+
+        long[] candidates = index.match(terms);
+        int wanted = Math.min(Math.max(limit, 1), maxResults);
+        List<ChatMessage> results = new ArrayList<>(wanted);
+        Map<String, Long> visibleAfter = new HashMap<>();
+
+        // Lê os candidatos em lotes, do mais recente para o mais antigo, até completar o limite.
+        for (int end = candidates.length; end > 0 && results.size() < wanted; end -= wanted) {
+            int start = Math.max(0, end - wanted);
+            List<Long> ids = new ArrayList<>(end - start);
+            for (int i = end - 1; i >= start; i--) {
+                ids.add(candidates[i]);
+            }
+
+            List<ChatMessage> batch = chatMessageRepository.findAllById(ids);
+            batch.sort(Comparator.comparing(ChatMessage::getId).reversed());
+            for (ChatMessage message : batch) {
+                String other = owner.equals(message.getSender()) ? message.getRecipient() : message.getSender();
+                if (peer != null && !peer.equals(other)) {
+                    continue;
+                }
+                long afterId = visibleAfter.computeIfAbsent(other,
+                        key -> conversationPurgeService.visibleAfterId(owner, key));
+                if (message.getId() > afterId) {
+                    results.add(message);
+                    if (results.size() == wanted) {
+                        break;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Path dir = Paths.get(indexDir);
+        long manifestId = 0;
+        try {
+            Files.createDirectories(dir);
+            Path manifest = dir.resolve(MANIFEST_FILE);
+            if (Files.exists(manifest)) {
+                manifestId = Long.parseLong(Files.readString(manifest).trim());
+                try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+                    for (Path segment : segments) {
+                        readSegment(segment);
+                    }
+                }
+            }
+            logger.info("Índice de busca carregado: {} usuários, indexado até a mensagem {}", indexes.size(), manifestId);
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Erro ao carregar o índice de busca, reconstruindo a partir do banco: {}", ex.getMessage(), ex);
+            indexes.clear();
+            manifestId = 0;
+        }
+
+        catchUp(Math.max(0, manifestId - CATCH_UP_OVERLAP));
+    }
+
+    /**
+     * Grava em disco os segmentos dos usuários alterados desde a última execução.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.chat.search.flush-interval-ms:30000}")
+    @PreDestroy
+    public void flush() {
+        long upToId = indexedUpToId.get();
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Path dir = Paths.get(indexDir);
+        int written = 0;
+        try {
+            Files.createDirectories(dir);
+            for (String owner : List.copyOf(dirty)) {
+                dirty.remove(owner);
+                UserIndex index = indexes.get(owner);
+                if (index == null) {
+                    continue;
+                }
+                try {
+                    writeAtomically(dir.resolve(segmentName(owner)), out -> index.writeTo(out, owner));
+                    written++;
+                } catch (IOException ex) {
+                    dirty.add(owner);
+                    throw ex;
+                }
+            }
+            writeAtomically(dir.resolve(MANIFEST_FILE), out -> out.write(Long.toString(upToId).getBytes(StandardCharsets.UTF_8)));
+            logger.info("Índice de busca gravado: {} segmentos, indexado até a mensagem {}", written, upToId);
+        } catch (IOException ex) {
+            logger.error("Erro ao gravar o índice de busca: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private void catchUp(long afterId) {
+        long cursor = afterId;
+        long total = 0;
+        List<ChatMessage> batch;
+        do {
+            batch = chatMessageRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(CATCH_UP_BATCH_SIZE));
+            for (ChatMessage message : batch) {
+                index(message);
+                cursor = message.getId();
+            }
+            total += batch.size();
+        } while (batch.size() == CATCH_UP_BATCH_SIZE);
+
+        if (total > 0) {
+            logger.info("Índice de busca atualizado com {} mensagens a partir da mensagem {}", total, afterId);
+        }
+    }
+
+    private void addToIndex(String owner, Set<String> terms, long messageId) {
+        indexes.computeIfAbsent(owner, key -> new UserIndex()).add(terms, messageId);
+        dirty.add(owner);
+    }
+
+    private void readSegment(Path segment) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            if (in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION) {
+                throw new IOException("Segmento de índice inválido: " + segment.getFileName());
+            }
+            String owner = in.readUTF();
+            indexes.put(owner, UserIndex.readFrom(in));
+        }
+    }
+
+    private void writeAtomically(Path target, SegmentWriter writer) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writer.write(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String segmentName(String owner) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(owner.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16) + SEGMENT_SUFFIX;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SegmentWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Índice invertido de um usuário: termo normalizado para a lista de IDs de mensagens.
+     */
+    private static final class UserIndex {
+
+        private final Map<String, PostingList> postings;
+
+        private UserIndex() {
+            this(new HashMap<>());
+        }
+
+        private UserIndex(Map<String, PostingList> postings) {
+            this.postings = postings;
+        }
+
+        synchronized void add(Set<String> terms, long messageId) {
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> new PostingList()).add(messageId);
+            }
+        }
+
+        /**
+         * Interseção das listas de todos os termos, começando pela menor.
+         */
+        synchronized long[] match(Set<String> terms) {
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            long[] result = lists.get(0).toArray();
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i).toArray());
+            }
+            return result;
+        }
+
+        synchronized void writeTo(DataOutputStream out, String owner) throws IOException {
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(SEGMENT_VERSION);
+            out.writeUTF(owner);
+            out.writeInt(postings.size());
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        static UserIndex readFrom(DataInputStream in) throws IOException {
+            int terms = in.readInt();
+            Map<String, PostingList> postings = new HashMap<>(terms * 2);
+            for (int i = 0; i < terms; i++) {
+                postings.put(in.readUTF(), PostingList.readFrom(in));
+            }
+            return new UserIndex(postings);
+        }
+
+        private static long[] intersect(long[] a, long[] b) {
+            long[] out = new long[Math.min(a.length, b.length)];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+    }
+}
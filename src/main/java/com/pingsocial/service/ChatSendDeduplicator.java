@@ -0,0 +1,115 @@
+package com.pingsocial.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Janela de deduplicação dos envios de chat por remetente.
+ * <p>
+ * Cada remetente tem um anel de tamanho fixo com três arrays primitivos (hash do ID do
+ * cliente, instante do envio e ID atribuído pelo servidor), alocados uma única vez. A
+ * consulta percorre o anel sem criar objetos. Entradas mais antigas que a janela são
+ * ignoradas e, quando o anel enche, a mais antiga é sobrescrita. O índice único
+ * (sender, client_message_id) no banco cobre o que sair da janela.
+ */
+@Service
+public class ChatSendDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSendDeduplicator.class);
+
+    public static final long NOT_FOUND = -1L;
+
+    private final Map<String, SenderWindow> windows = new ConcurrentHashMap<>();
+
+    @Value("${pingsocial.chat.dedupe.window-ms:120000}")
+    private long windowMs;
+
+    @Value("${pingsocial.chat.dedupe.capacity:64}")
+    private int capacity;
+
+    /**
+     * Retorna o ID já atribuído a um envio do remetente dentro da janela, ou {@link #NOT_FOUND}.
+     */
+    public long find(String sender, String clientMessageId) {
+        SenderWindow window = windows.get(sender);
+        if (window == null) {
+            return NOT_FOUND;
+        }
+        return window.find(hash(clientMessageId), System.currentTimeMillis() - windowMs);
+    }
+
+    /**
+     * Registra o ID atribuído pelo servidor a um envio do remetente.
+     */
+    public void record(String sender, String clientMessageId, long serverId) {
+        windows.computeIfAbsent(sender, key -> new SenderWindow(capacity))
+                .record(hash(clientMessageId), System.currentTimeMillis(), serverId);
+    }
+
+    /**
+     * Descarta as janelas de remetentes sem envios recentes.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.chat.dedupe.window-ms:120000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        int before = windows.size();
+        windows.values().removeIf(window -> window.lastSeenAt() < cutoff);
+        int removed = before - windows.size();
+        if (removed > 0) {
+            logger.debug("Removidas {} janelas de deduplicação inativas", removed);
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre os caracteres, sem alocar bytes intermediários.
+     * Com 64 bits e poucas dezenas de entradas por remetente, colisões são desprezíveis.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class SenderWindow {
+
+        private final long[] hashes;
+        private final long[] seenAt;
+        private final long[] serverIds;
+        private int next;
+
+        private SenderWindow(int capacity) {
+            this.hashes = new long[capacity];
+            this.seenAt = new long[capacity];
+            this.serverIds = new long[capacity];
+        }
+
+        synchronized long find(long hash, long notBefore) {
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] == hash && seenAt[i] >= notBefore && seenAt[i] != 0) {
+                    return serverIds[i];
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        synchronized void record(long hash, long now, long serverId) {
+            hashes[next] = hash;
+            seenAt[next] = now;
+            serverIds[next] = serverId;
+            next = (next + 1) % hashes.length;
+        }
+
+        synchronized long lastSeenAt() {
+            return seenAt[(next - 1 + seenAt.length) % seenAt.length];
+        }
+    }
+}
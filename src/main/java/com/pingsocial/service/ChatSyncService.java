@@ -0,0 +1,220 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.ChatClearChangeDto;
+import com.pingsocial.dto.ChatReadChangeDto;
+import com.pingsocial.dto.ChatSyncCursor;
+import com.pingsocial.dto.ChatSyncDto;
+import com.pingsocial.exception.SyncCursorExpiredException;
+import com.pingsocial.models.ChatChange;
+import com.pingsocial.models.ChatChangeType;
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.repository.ChatChangeRepository;
+import com.pingsocial.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Log de alterações do chat por usuário e sincronização incremental a partir dele.
+ * <p>
+ * Cada mensagem, confirmação de leitura e limpeza de conversa gera uma entrada para cada
+ * participante (no chat de tribo, cada membro), na mesma transação que atualiza o resumo da
+ * conversa. O cursor não usa o ID
+ * da entrada, atribuído no INSERT (uma transação longa pode fazer commit de um ID menor que
+ * outro já entregue), e sim a sequência {@code seq}: {@link #publish()} a atribui às entradas
+ * já confirmadas, com um advisory lock para que só uma publicação rode por vez. Assim as
+ * sequências crescem na ordem de commit e a sincronização é uma leitura por faixa em
+ * (user_email, seq). A retenção guarda, por usuário, a maior sequência removida; só os
+ * cursores anteriores a ela expiram.
+ */
+@Service
+public class ChatSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSyncService.class);
+
+    private static final int PRUNE_BATCH_SIZE = 1000;
+
+    private static final String PUBLISH_BATCH = "UPDATE chat_changes_tb c SET seq = numbered.seq " +
+            "FROM (SELECT id, nextval('chat_changes_seq') AS seq FROM (" +
+            "SELECT id FROM chat_changes_tb WHERE seq IS NULL ORDER BY id LIMIT ?) pending) numbered " +
+            "WHERE c.id = numbered.id";
+
+    private static final String PRUNE_BATCH = "WITH deleted AS (" +
+            "DELETE FROM chat_changes_tb WHERE id IN (" +
+            "SELECT id FROM chat_changes_tb WHERE created_at < ? AND seq IS NOT NULL LIMIT ?) " +
+            "RETURNING user_email, seq" +
+            "), marked AS (" +
+            "INSERT INTO chat_sync_watermarks_tb (user_email, pruned_up_to) " +
+            "SELECT user_email, MAX(seq) FROM deleted GROUP BY user_email " +
+            "ON CONFLICT (user_email) DO UPDATE " +
+            "SET pruned_up_to = GREATEST(chat_sync_watermarks_tb.pruned_up_to, EXCLUDED.pruned_up_to)" +
+            ") SELECT COUNT(*) FROM deleted";
+
+    private final ChatChangeRepository chatChangeRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${pingsocial.chat.sync.publish-batch-size:5000}")
+    private int publishBatchSize;
+
+    @Value("${pingsocial.chat.sync.retention-days:30}")
+    private int retentionDays;
+
+    public ChatSyncService(ChatChangeRepository chatChangeRepository, ChatMessageRepository chatMessageRepository,
+                           JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.chatChangeRepository = chatChangeRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordMessage(ChatMessage message) {
+        LocalDateTime now = LocalDateTime.now();
+        chatChangeRepository.saveAll(List.of(
+                new ChatChange(message.getSender(), ChatChangeType.MESSAGE, message.getRecipient(), message.getId(), null, now),
+                new ChatChange(message.getRecipient(), ChatChangeType.MESSAGE, message.getSender(), message.getId(), null, now)
+        ));
+    }
+
+    /**
+     * Registra uma mensagem de tribo no log de cada membro, com um único INSERT ... SELECT.
+     */
+    public void recordTribeMessage(ChatMessage message) {
+        int members = jdbcTemplate.update(
+                "INSERT INTO chat_changes_tb (user_email, change_type, message_id, created_at) " +
+                        "SELECT u.email, ?, ?, ? FROM user_tribe ut JOIN users_tb u ON u.id = ut.user_id " +
+                        "WHERE ut.tribe_id = ?",
+                ChatChangeType.MESSAGE.name(), message.getId(), LocalDateTime.now(), message.getTribeId());
+        logger.debug("Mensagem {} da tribo {} registrada para {} membros", message.getId(), message.getTribeId(), members);
+    }
+
+    public void recordRead(String reader, String peer, Long upToId) {
+        LocalDateTime now = LocalDateTime.now();
+        chatChangeRepository.saveAll(List.of(
+                new ChatChange(reader, ChatChangeType.READ, peer, null, upToId, now),
+                new ChatChange(peer, ChatChangeType.READ_RECEIPT, reader, null, upToId, now)
+        ));
+    }
+
+    public void recordClear(String userA, String userB, Long upToId) {
+        LocalDateTime now = LocalDateTime.now();
+        chatChangeRepository.saveAll(List.of(
+                new ChatChange(userA, ChatChangeType.CLEAR, userB, null, upToId, now),
+                new ChatChange(userB, ChatChangeType.CLEAR, userA, null, upToId, now)
+        ));
+    }
+
+    /**
+     * Obtém as alterações do chat do usuário desde o cursor informado.
+     *
+     * @param owner  Email do usuário
+     * @param cursor Cursor retornado pela sincronização anterior (ou null para obter apenas a posição atual)
+     * @param limit  Quantidade máxima de alterações lidas
+     * @throws IllegalArgumentException    se o cursor for inválido
+     * @throws SyncCursorExpiredException se as alterações posteriores ao cursor já foram removidas
+     */
+    public ChatSyncDto sync(String owner, String cursor, int limit) {
+        if (cursor == null || cursor.isBlank()) {
+            Long latest = chatChangeRepository.findLatestSequence(owner);
+            return new ChatSyncDto(List.of(), List.of(), List.of(),
+                    new ChatSyncCursor(latest != null ? latest : 0L).encode(), false);
+        }
+
+        long since = ChatSyncCursor.decode(cursor).sequence();
+        Long prunedUpTo = chatChangeRepository.findPrunedUpTo(owner);
+        if (prunedUpTo != null && since < prunedUpTo) {
+            throw new SyncCursorExpiredException(since);
+        }
+
+        List<ChatChange> changes = chatChangeRepository.findChangesSince(owner, since, Limit.of(limit + 1));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        Set<Long> messageIds = new LinkedHashSet<>();
+        Map<String, Long> clearedUpTo = new HashMap<>();
+        List<ChatReadChangeDto> reads = new ArrayList<>();
+        List<ChatClearChangeDto> clears = new ArrayList<>();
+        for (ChatChange change : changes) {
+            switch (change.getChangeType()) {
+                case MESSAGE -> messageIds.add(change.getMessageId());
+                case READ -> reads.add(new ChatReadChangeDto(owner, change.getPeerEmail(), change.getUpToId()));
+                case READ_RECEIPT -> reads.add(new ChatReadChangeDto(change.getPeerEmail(), owner, change.getUpToId()));
+                case CLEAR -> {
+                    clears.add(new ChatClearChangeDto(change.getPeerEmail(), change.getUpToId()));
+                    clearedUpTo.merge(change.getPeerEmail(), change.getUpToId(), Math::max);
+                }
+            }
+        }
+
+        List<ChatMessage> messages = messageIds.isEmpty() ? List.of()
+                : chatMessageRepository.findAllById(messageIds).stream()
+                .filter(message -> {
+                    if (message.getTribeId() != null) {
+                        return true;
+                    }
+                    String peer = owner.equals(message.getSender()) ? message.getRecipient() : message.getSender();
+                    Long upTo = clearedUpTo.get(peer);
+                    return upTo == null || message.getId() > upTo;
+                })
+                .sorted(Comparator.comparing(ChatMessage::getId))
+                .toList();
+
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return new ChatSyncDto(messages, reads, clears, new ChatSyncCursor(next).encode(), hasMore);
+    }
+
+    /**
+     * Atribui a sequência de sincronização às entradas já confirmadas, em ordem de ID. O
+     * advisory lock serializa as publicações (inclusive entre instâncias): cada lote recebe
+     * sequências maiores que as de todos os lotes confirmados antes dele.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.chat.sync.publish-interval-ms:200}")
+    public void publish() {
+        int published;
+        do {
+            Integer updated = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('chat_changes_seq'))");
+                return jdbcTemplate.update(PUBLISH_BATCH, publishBatchSize);
+            });
+            published = updated != null ? updated : 0;
+        } while (published == publishBatchSize);
+    }
+
+    /**
+     * Remove as entradas do log mais antigas que o período de retenção, registrando por
+     * usuário a maior sequência removida.
+     */
+    @Scheduled(cron = "${pingsocial.chat.sync.prune-cron:0 30 3 * * *}")
+    public void prune() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        int deleted;
+        do {
+            Integer count = jdbcTemplate.queryForObject(PRUNE_BATCH, Integer.class, before, PRUNE_BATCH_SIZE);
+            deleted = count != null ? count : 0;
+            total += deleted;
+        } while (deleted == PRUNE_BATCH_SIZE);
+
+        if (total > 0) {
+            logger.info("Removidas {} alterações do chat anteriores a {}", total, before);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.pingsocial.service;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Quebra textos de mensagens em termos para o índice de busca.
+ * Os termos são normalizados sem acentos e em minúsculas ("Ação" e "acao" geram o
+ * mesmo termo) e palavras muito comuns do português são descartadas.
+ */
+public final class ChatTextTokenizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos", "um", "uma",
+            "os", "as", "que", "se", "por", "para", "pra", "com", "ao", "aos", "ou", "e", "o", "a"
+    );
+
+    private ChatTextTokenizer() {
+    }
+
+    /**
+     * Normaliza um texto: remove acentos e converte para minúsculas.
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Extrai os termos distintos de um texto, na ordem em que aparecem.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+
+        for (String term : SEPARATORS.split(normalize(text))) {
+            if (term.length() >= MIN_TERM_LENGTH && term.length() <= MAX_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
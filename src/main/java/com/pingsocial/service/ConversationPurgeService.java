@@ -0,0 +1,122 @@
+package com.pingsocial.service;
+
+import com.pingsocial.models.ChatClear;
+import com.pingsocial.repository.ChatClearRepository;
+import com.pingsocial.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Limpeza de conversas em duas etapas: um marcador (tombstone) esconde as mensagens
+ * imediatamente e um job em segundo plano as remove em lotes limitados, cada lote em
+ * sua própria transação, sem carregar entidades no contexto de persistência.
+ */
+@Service
+public class ConversationPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationPurgeService.class);
+
+    private final ChatClearRepository chatClearRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatConversationService chatConversationService;
+
+    @Value("${pingsocial.chat.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${pingsocial.chat.purge.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    public ConversationPurgeService(ChatClearRepository chatClearRepository,
+                                    ChatMessageRepository chatMessageRepository,
+                                    ChatConversationService chatConversationService) {
+        this.chatClearRepository = chatClearRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatConversationService = chatConversationService;
+    }
+
+    /**
+     * Marca a conversa entre dois usuários como limpa até a mensagem mais recente.
+     *
+     * @param requestedBy Email de quem solicitou a limpeza
+     * @param userId      Email de um dos participantes
+     * @param userId2     Email do outro participante
+     * @return false se não houver mensagens visíveis para limpar
+     */
+    @Transactional
+    public boolean requestClear(String requestedBy, String userId, String userId2) {
+        String userA = first(userId, userId2);
+        String userB = second(userId, userId2);
+
+        Long maxId = chatMessageRepository.findMaxIdBetweenUsers(userA, userB);
+        Long clearedUpToId = chatClearRepository.findClearedUpToId(userA, userB);
+        if (maxId == null || (clearedUpToId != null && maxId <= clearedUpToId)) {
+            return false;
+        }
+
+        chatClearRepository.save(new ChatClear(userA, userB, maxId, requestedBy, LocalDateTime.now()));
+        chatConversationService.onConversationCleared(userA, userB, maxId);
+
+        logger.info("Conversa entre {} e {} marcada como limpa até a mensagem {}", userA, userB, maxId);
+        return true;
+    }
+
+    /**
+     * Retorna o ID a partir do qual as mensagens entre dois usuários são visíveis
+     * (0 se a conversa nunca foi limpa).
+     */
+    public long visibleAfterId(String userId, String userId2) {
+        Long clearedUpToId = chatClearRepository.findClearedUpToId(first(userId, userId2), second(userId, userId2));
+        return clearedUpToId != null ? clearedUpToId : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${pingsocial.chat.purge.interval-ms:2000}")
+    public void purgePending() {
+        List<ChatClear> pending = chatClearRepository.findByPurgedAtIsNullOrderByIdAsc(Limit.of(10));
+        for (ChatClear clear : pending) {
+            try {
+                purge(clear);
+            } catch (Exception ex) {
+                logger.error("Erro ao remover mensagens da conversa entre {} e {}: {}",
+                        clear.getUserA(), clear.getUserB(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void purge(ChatClear clear) {
+        long total = 0;
+        int batches = 0;
+        int deleted;
+        do {
+            deleted = chatMessageRepository.deleteChunkBetweenUsers(
+                    clear.getUserA(), clear.getUserB(), clear.getClearedUpToId(), batchSize);
+            total += deleted;
+            batches++;
+        } while (deleted == batchSize && batches < maxBatchesPerRun);
+
+        if (deleted < batchSize) {
+            clear.setPurgedAt(LocalDateTime.now());
+            chatClearRepository.save(clear);
+            logger.info("Remoção concluída da conversa entre {} e {}: {} mensagens nesta execução",
+                    clear.getUserA(), clear.getUserB(), total);
+        } else {
+            logger.info("Removidas {} mensagens da conversa entre {} e {}, continuando na próxima execução",
+                    total, clear.getUserA(), clear.getUserB());
+        }
+    }
+
+    private static String first(String userId, String userId2) {
+        return userId.compareTo(userId2) <= 0 ? userId : userId2;
+    }
+
+    private static String second(String userId, String userId2) {
+        return userId.compareTo(userId2) <= 0 ? userId2 : userId;
+    }
+}
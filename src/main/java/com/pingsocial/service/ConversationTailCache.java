@@ -0,0 +1,448 @@
+package com.pingsocial.service;
+
+import com.pingsocial.models.ChatConversation;
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.repository.ChatClearRepository;
+import com.pingsocial.repository.ChatConversationRepository;
+import com.pingsocial.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória das últimas mensagens das conversas ativas.
+ * <p>
+ * O histórico é paginado em ordem crescente, então a página 0 contém as mensagens mais
+ * antigas. O cache guarda as últimas mensagens visíveis de cada conversa e quantas mensagens
+ * mais antigas ficaram fora dele; as páginas que caem inteiras nesse trecho final são
+ * respondidas do cache e as demais vão ao banco. As novas mensagens de
+ * {@code ChatController.sendMessage} entram no fim do trecho; quando ele passa do limite de
+ * mensagens por conversa, a conversa sai do cache. Uma conversa fora do cache (no envio ou
+ * em uma consulta que foi ao banco) é carregada em segundo plano, fora da requisição, e a
+ * posição do trecho vem do contador de mensagens de chat_conversations_tb.
+ * <p>
+ * O chat de tribo é paginado por ID decrescente. O trecho de uma tribo é criado pelo primeiro
+ * envio de {@code ChatController.sendTribeMessage} e contém todas as mensagens salvas desde
+ * então; acima do limite as mais antigas são descartadas. Uma página é respondida do cache
+ * quando o trecho tem mensagens suficientes abaixo do cursor.
+ * <p>
+ * As conversas são descartadas por LRU, respeitando um limite de conversas e uma estimativa
+ * do total de bytes ocupados.
+ */
+@Service
+public class ConversationTailCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationTailCache.class);
+
+    private static final Comparator<ChatMessage> HISTORY_ORDER = Comparator
+            .comparing(ChatMessage::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ChatMessage::getId);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatConversationRepository chatConversationRepository;
+    private final ChatClearRepository chatClearRepository;
+    private final ThreadPoolTaskExecutor seedExecutor;
+    private final Map<String, Tail> tails = new LinkedHashMap<>(16, 0.75f, true);
+    // Conversas em carga, guardadas pelo lock de tails
+    private final Map<String, Seeding> seeding = new HashMap<>();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${pingsocial.chat.history.cache.messages-per-conversation:200}")
+    private int messagesPerConversation;
+
+    @Value("${pingsocial.chat.history.cache.max-conversations:5000}")
+    private int maxConversations;
+
+    @Value("${pingsocial.chat.history.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    public ConversationTailCache(ChatMessageRepository chatMessageRepository,
+                                 ChatConversationRepository chatConversationRepository,
+                                 ChatClearRepository chatClearRepository, MeterRegistry meterRegistry,
+                                 @Value("${pingsocial.chat.history.cache.seed-queue-capacity:1000}") int seedQueueCapacity) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatConversationRepository = chatConversationRepository;
+        this.chatClearRepository = chatClearRepository;
+        this.seedExecutor = new ThreadPoolTaskExecutor();
+        this.seedExecutor.setCorePoolSize(1);
+        this.seedExecutor.setMaxPoolSize(1);
+        this.seedExecutor.setQueueCapacity(seedQueueCapacity);
+        this.seedExecutor.setThreadNamePrefix("chat-history-seed-");
+        this.seedExecutor.initialize();
+        this.hits = Counter.builder("pingsocial.chat.history.cache.hits")
+                .description("Consultas de histórico respondidas pelo cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("pingsocial.chat.history.cache.misses")
+                .description("Consultas de histórico que foram ao banco")
+                .register(meterRegistry);
+        Gauge.builder("pingsocial.chat.history.cache.hit.ratio", this, ConversationTailCache::hitRatio)
+                .description("Proporção de consultas de histórico respondidas pelo cache")
+                .register(meterRegistry);
+        Gauge.builder("pingsocial.chat.history.cache.memory", estimatedBytes, AtomicLong::get)
+                .description("Estimativa de memória ocupada pelas mensagens em cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pingsocial.chat.history.cache.conversations", this, cache -> cache.size())
+                .description("Conversas mantidas no cache de histórico")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retorna uma página do histórico se ela estiver inteira no trecho em cache.
+     */
+    public Optional<List<ChatMessage>> page(String userId, String userId2, int page, int size) {
+        long start = (long) page * size;
+        List<ChatMessage> snapshot = null;
+        long offset = 0;
+        synchronized (tails) {
+            Tail tail = tails.get(key(userId, userId2));
+            if (tail != null && start >= tail.offset) {
+                snapshot = new ArrayList<>(tail.messages);
+                offset = tail.offset;
+            }
+        }
+
+        if (snapshot == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        snapshot.sort(HISTORY_ORDER);
+        int from = (int) Math.min(start - offset, snapshot.size());
+        int to = (int) Math.min((long) from + size, snapshot.size());
+        return Optional.of(new ArrayList<>(snapshot.subList(from, to)));
+    }
+
+    /**
+     * Retorna uma página do histórico da tribo (mensagens de ID menor que {@code beforeId}, ou as
+     * mais recentes se ele for nulo, em ordem decrescente) se ela estiver inteira no trecho em cache.
+     */
+    public Optional<List<ChatMessage>> tribePage(Long tribeId, Long beforeId, int size) {
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        List<ChatMessage> page = new ArrayList<>();
+        synchronized (tails) {
+            Tail tail = tails.get(tribeKey(tribeId));
+            if (tail != null) {
+                for (ChatMessage message : tail.messages) {
+                    if (message.getId() > tail.floorId && message.getId() < before) {
+                        page.add(message);
+                    }
+                }
+            }
+        }
+
+        if (page.size() < size) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        page.sort(Comparator.comparing(ChatMessage::getId).reversed());
+        return Optional.of(new ArrayList<>(page.subList(0, size)));
+    }
+
+    /**
+     * Acrescenta uma mensagem de tribo recém-salva ao trecho em cache da tribo, criando-o se
+     * preciso. Todas as mensagens de ID maior que {@code floorId} estão no trecho; ao descartar
+     * as mais antigas, o piso sobe até o maior ID descartado.
+     */
+    public void appendTribe(ChatMessage message) {
+        if (message.getId() == null || message.getTribeId() == null) {
+            return;
+        }
+
+        synchronized (tails) {
+            Tail tail = tails.computeIfAbsent(tribeKey(message.getTribeId()), key -> {
+                Tail created = new Tail();
+                created.floorId = message.getId() - 1;
+                return created;
+            });
+            tail.messages.addLast(message);
+            long added = estimateBytes(message);
+            tail.bytes += added;
+            estimatedBytes.addAndGet(added);
+
+            while (tail.messages.size() > messagesPerConversation) {
+                ChatMessage dropped = tail.messages.pollFirst();
+                tail.floorId = Math.max(tail.floorId, dropped.getId());
+                long removed = estimateBytes(dropped);
+                tail.bytes -= removed;
+                estimatedBytes.addAndGet(-removed);
+            }
+            evictIfNeeded();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        seedExecutor.shutdown();
+    }
+
+    /**
+     * Agenda a carga da conversa no cache, se ela não estiver nele nem em carga.
+     */
+    public void requestSeed(String userId, String userId2) {
+        String key = key(userId, userId2);
+        synchronized (tails) {
+            if (tails.containsKey(key) || seeding.containsKey(key)) {
+                return;
+            }
+            seeding.put(key, new Seeding());
+        }
+
+        try {
+            seedExecutor.execute(() -> seed(userId, userId2, key));
+        } catch (TaskRejectedException ex) {
+            synchronized (tails) {
+                seeding.remove(key);
+            }
+            logger.debug("Fila de carga do cache de histórico cheia, conversa {} ignorada", key);
+        }
+    }
+
+    /**
+     * Carrega as últimas mensagens visíveis da conversa. A posição do trecho é o contador de
+     * mensagens da conversa menos as mensagens carregadas que ele já inclui (até a última
+     * mensagem registrada na conversa). As mensagens salvas durante a carga são acrescentadas
+     * no fim; se a conversa for limpa durante a carga, o resultado é descartado.
+     */
+    private void seed(String userId, String userId2, String key) {
+        try {
+            long visibleAfterId = visibleAfterId(userId, userId2);
+            // O contador é lido antes das mensagens: tudo o que ele inclui já está salvo
+            ChatConversation conversation = chatConversationRepository.findByOwnerEmailAndPeerEmail(userId, userId2)
+                    .orElse(null);
+            // Carrega metade da capacidade, deixando espaço para as próximas mensagens antes de transbordar
+            List<ChatMessage> newest = chatMessageRepository.findConversationTail(userId, userId2, visibleAfterId,
+                    PageRequest.of(0, Math.max(1, messagesPerConversation / 2)));
+            long counted = conversation != null ? conversation.getMessageCount() : 0;
+            long lastCountedId = conversation != null && conversation.getLastMessageId() != null
+                    ? conversation.getLastMessageId() : 0;
+
+            Tail tail = new Tail();
+            Set<Long> ids = new HashSet<>();
+            long included = 0;
+            for (ChatMessage message : newest) {
+                tail.messages.addFirst(message);
+                tail.bytes += estimateBytes(message);
+                ids.add(message.getId());
+                if (message.getId() <= lastCountedId) {
+                    included++;
+                }
+            }
+            tail.offset = Math.max(0, counted - included);
+
+            boolean cleared = visibleAfterId(userId, userId2) != visibleAfterId;
+            synchronized (tails) {
+                Seeding state = seeding.remove(key);
+                if (cleared || state == null || state.invalidated || tails.containsKey(key)) {
+                    return;
+                }
+                tails.put(key, tail);
+                estimatedBytes.addAndGet(tail.bytes);
+                for (ChatMessage message : state.appended) {
+                    if (ids.add(message.getId()) && !appendTo(key, tail, message)) {
+                        return;
+                    }
+                }
+                evictIfNeeded();
+            }
+            logger.debug("Conversa {} carregada no cache de histórico com {} mensagens", key, tail.messages.size());
+        } catch (RuntimeException ex) {
+            synchronized (tails) {
+                seeding.remove(key);
+            }
+            logger.error("Erro ao carregar a conversa {} no cache de histórico: {}", key, ex.getMessage(), ex);
+        }
+    }
+
+    private long visibleAfterId(String userId, String userId2) {
+        Long clearedUpToId = userId.compareTo(userId2) <= 0
+                ? chatClearRepository.findClearedUpToId(userId, userId2)
+                : chatClearRepository.findClearedUpToId(userId2, userId);
+        return clearedUpToId != null ? clearedUpToId : 0L;
+    }
+
+    /**
+     * Acrescenta uma mensagem recém-salva ao fim do trecho em cache da conversa. Se o trecho
+     * passar do limite, ou se a mensagem não ficar depois das mensagens mais antigas fora do
+     * cache, a conversa sai do cache. Uma conversa fora do cache é carregada em segundo plano.
+     */
+    public void append(ChatMessage message) {
+        if (message.getId() == null || message.getRecipient() == null) {
+            return;
+        }
+
+        String key = key(message.getSender(), message.getRecipient());
+        synchronized (tails) {
+            Tail tail = tails.get(key);
+            if (tail != null) {
+                if (appendTo(key, tail, message)) {
+                    evictIfNeeded();
+                }
+                return;
+            }
+            Seeding state = seeding.get(key);
+            if (state != null) {
+                state.appended.add(message);
+                return;
+            }
+        }
+        requestSeed(message.getSender(), message.getRecipient());
+    }
+
+    /**
+     * Acrescenta a mensagem ao trecho, ou retira a conversa do cache se ela não couber.
+     * Chamado com o lock de tails.
+     *
+     * @return false se a conversa saiu do cache
+     */
+    private boolean appendTo(String key, Tail tail, ChatMessage message) {
+        boolean outOfOrder = tail.offset > 0 && !tail.messages.isEmpty()
+                && HISTORY_ORDER.compare(message, tail.messages.peekLast()) < 0;
+        if (outOfOrder || tail.messages.size() >= messagesPerConversation) {
+            tails.remove(key);
+            estimatedBytes.addAndGet(-tail.bytes);
+            return false;
+        }
+
+        tail.messages.addLast(message);
+        long added = estimateBytes(message);
+        tail.bytes += added;
+        estimatedBytes.addAndGet(added);
+        return true;
+    }
+
+    /**
+     * Reflete no cache a marcação de leitura das mensagens de {@code peer} para {@code reader}.
+     */
+    public void markRead(String reader, String peer, long upToId) {
+        synchronized (tails) {
+            Tail tail = tails.get(key(reader, peer));
+            if (tail == null) {
+                return;
+            }
+            for (ChatMessage message : tail.messages) {
+                if (message.getId() <= upToId && reader.equals(message.getRecipient()) && peer.equals(message.getSender())) {
+                    message.setIs_read(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retira a conversa do cache e descarta uma carga em andamento. Dentro de uma transação,
+     * repete a operação depois do commit: uma carga iniciada antes dele ainda lê o estado
+     * anterior da conversa.
+     */
+    public void invalidate(String userId, String userId2) {
+        String key = key(userId, userId2);
+        remove(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(key);
+                }
+            });
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (tails) {
+            Tail tail = tails.remove(key);
+            if (tail != null) {
+                estimatedBytes.addAndGet(-tail.bytes);
+            }
+            Seeding state = seeding.get(key);
+            if (state != null) {
+                state.invalidated = true;
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Tail> eldest = tails.values().iterator();
+        while (eldest.hasNext() && (tails.size() > maxConversations || estimatedBytes.get() > maxBytes)) {
+            Tail tail = eldest.next();
+            eldest.remove();
+            estimatedBytes.addAndGet(-tail.bytes);
+            logger.debug("Conversa descartada do cache de histórico ({} bytes)", tail.bytes);
+        }
+    }
+
+    private int size() {
+        synchronized (tails) {
+            return tails.size();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    /**
+     * Estimativa grosseira do espaço de uma mensagem: cabeçalhos dos objetos mais dois bytes por caractere.
+     */
+    private static long estimateBytes(ChatMessage message) {
+        return 96L + 2L * (length(message.getText()) + length(message.getSender())
+                + length(message.getRecipient()) + length(message.getTimestamp()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static String key(String userId, String userId2) {
+        return userId.compareTo(userId2) <= 0 ? userId + '\n' + userId2 : userId2 + '\n' + userId;
+    }
+
+    private static String tribeKey(Long tribeId) {
+        return "tribe:" + tribeId;
+    }
+
+    private static final class Seeding {
+
+        // Mensagens salvas durante a carga, acrescentadas ao trecho carregado
+        private final List<ChatMessage> appended = new ArrayList<>();
+        private boolean invalidated;
+    }
+
+    private static final class Tail {
+
+        private final Deque<ChatMessage> messages = new ArrayDeque<>();
+        private long bytes;
+        // Mensagens visíveis mais antigas que não estão no cache
+        private long offset;
+        // Chat de tribo: todas as mensagens de ID maior estão no cache
+        private long floorId;
+    }
+}
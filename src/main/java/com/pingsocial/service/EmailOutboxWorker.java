@@ -0,0 +1,261 @@
+package com.pingsocial.service;
+
+import com.pingsocial.models.EmailOutbox;
+import com.pingsocial.models.EmailOutboxStatus;
+import com.pingsocial.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Envia os e-mails da tabela de saída.
+ * <p>
+ * A cada ciclo os e-mails pendentes são bloqueados (FOR UPDATE SKIP LOCKED, o que permite
+ * várias instâncias), agrupados por domínio do destinatário e divididos em lotes entregues
+ * a um pool de workers. Cada lote é enviado com {@link JavaMailSender#send(MimeMessage...)},
+ * que abre um único {@code Transport} e o reutiliza para todas as mensagens do lote. Falhas
+ * voltam para a fila com espera exponencial até o limite de tentativas, e cada domínio tem
+ * um limite de envios por minuto: o excedente é adiado sem contar como tentativa.
+ */
+@Service
+public class EmailOutboxWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<String, DomainWindow> domainWindows = new HashMap<>();
+    private final String from;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final int perDomainPerMinute;
+
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository,
+                             JavaMailSender mailSender,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${spring.mail.username}") String from,
+                             @Value("${pingsocial.mail.outbox.workers:2}") int workers,
+                             @Value("${pingsocial.mail.outbox.batch-size:50}") int batchSize,
+                             @Value("${pingsocial.mail.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${pingsocial.mail.outbox.base-backoff-ms:5000}") long baseBackoffMs,
+                             @Value("${pingsocial.mail.outbox.max-backoff-ms:3600000}") long maxBackoffMs,
+                             @Value("${pingsocial.mail.outbox.per-domain-per-minute:120}") int perDomainPerMinute) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.from = from;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.perDomainPerMinute = perDomainPerMinute;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(workers);
+        this.executor.setMaxPoolSize(workers);
+        this.executor.setQueueCapacity(workers * 4);
+        this.executor.setThreadNamePrefix("email-outbox-");
+        this.executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.initialize();
+    }
+
+    @Scheduled(fixedDelayString = "${pingsocial.mail.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<EmailOutbox> claimed = claim(batchSize * executor.getMaxPoolSize());
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<EmailOutbox>> byDomain = new LinkedHashMap<>();
+        List<EmailOutbox> deferred = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox email : claimed) {
+            String domain = domainOf(email.getRecipient());
+            LocalDateTime allowedAt = acquire(domain, now);
+            if (allowedAt != null) {
+                email.setStatus(EmailOutboxStatus.PENDING);
+                email.setNextAttemptAt(allowedAt);
+                deferred.add(email);
+            } else {
+                byDomain.computeIfAbsent(domain, key -> new ArrayList<>()).add(email);
+            }
+        }
+
+        if (!deferred.isEmpty()) {
+            emailOutboxRepository.saveAll(deferred);
+            logger.info("{} e-mails adiados pelo limite por domínio", deferred.size());
+        }
+
+        for (List<EmailOutbox> emails : byDomain.values()) {
+            for (int start = 0; start < emails.size(); start += batchSize) {
+                List<EmailOutbox> batch = emails.subList(start, Math.min(start + batchSize, emails.size()));
+                executor.execute(() -> deliver(batch));
+            }
+        }
+    }
+
+    /**
+     * Envia um lote de e-mails por uma única conexão SMTP e grava o resultado de cada um.
+     */
+    public void deliver(List<EmailOutbox> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException ex) {
+                fail(email, ex, now);
+            }
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException ex) {
+            failures = ex.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchFailure = ex;
+            }
+        } catch (MailException ex) {
+            batchFailure = ex;
+        }
+
+        int sent = 0;
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : messages.entrySet()) {
+            EmailOutbox email = entry.getValue();
+            Exception failure = batchFailure != null ? batchFailure : failures.get(entry.getKey());
+            if (failure != null) {
+                fail(email, failure, now);
+            } else {
+                email.setStatus(EmailOutboxStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent++;
+            }
+        }
+
+        emailOutboxRepository.saveAll(batch);
+        logger.info("Lote de e-mails processado: {} enviados, {} com falha", sent, batch.size() - sent);
+    }
+
+    /**
+     * Devolve à fila e-mails presos em envio há mais tempo que o limite.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.mail.outbox.stale-check-interval-ms:60000}")
+    public void releaseStale() {
+        Integer released = transactionTemplate.execute(status ->
+                emailOutboxRepository.releaseStale(LocalDateTime.now().minusMinutes(5)));
+        if (released != null && released > 0) {
+            logger.warn("{} e-mails presos em envio voltaram para a fila", released);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<EmailOutbox> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = emailOutboxRepository.lockDueIds(now, limit);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            emailOutboxRepository.markSending(ids, now);
+            return emailOutboxRepository.findAllById(ids);
+        });
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        return message;
+    }
+
+    private void fail(EmailOutbox email, Exception ex, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+        email.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutboxStatus.FAILED);
+            logger.error("E-mail {} para {} descartado após {} tentativas: {}", email.getId(), email.getRecipient(), attempts, error);
+            return;
+        }
+
+        Duration backoff = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        email.setStatus(EmailOutboxStatus.PENDING);
+        email.setNextAttemptAt(now.plus(backoff));
+        logger.warn("Falha ao enviar e-mail {} para {} (tentativa {}), nova tentativa em {} s: {}",
+                email.getId(), email.getRecipient(), attempts, backoff.toSeconds(), error);
+    }
+
+    /**
+     * Reserva um envio para o domínio na janela do minuto atual.
+     *
+     * @return null se o envio foi permitido, ou o instante em que a próxima janela começa
+     */
+    private synchronized LocalDateTime acquire(String domain, LocalDateTime now) {
+        if (domainWindows.size() > 10_000) {
+            domainWindows.values().removeIf(existing -> !now.isBefore(existing.start.plusMinutes(1)));
+        }
+        DomainWindow window = domainWindows.computeIfAbsent(domain, key -> new DomainWindow());
+        if (window.start == null || !now.isBefore(window.start.plusMinutes(1))) {
+            window.start = now;
+            window.count = 0;
+        }
+        if (window.count >= perDomainPerMinute) {
+            return window.start.plusMinutes(1);
+        }
+        window.count++;
+        return null;
+    }
+
+    private static String domainOf(String recipient) {
+        int at = recipient != null ? recipient.lastIndexOf('@') : -1;
+        return at >= 0 ? recipient.substring(at + 1).toLowerCase() : "";
+    }
+
+    private static final class DomainWindow {
+
+        private LocalDateTime start;
+        private int count;
+    }
+}
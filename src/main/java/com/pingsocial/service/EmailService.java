@@ -1,33 +1,31 @@
 package com.pingsocial.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import com.pingsocial.models.EmailOutbox;
+import com.pingsocial.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
+/**
+ * Enfileira e-mails na tabela de saída. O envio SMTP é feito pelo {@link EmailOutboxWorker},
+ * então quem chama não espera pelo servidor de e-mail. Dentro de uma transação, o e-mail só
+ * é enviado se ela fizer commit.
+ */
 @Service
 public class EmailService {
 
-    @Autowired
-    private JavaMailSender emailSender;
-
-    @Value("${spring.mail.username}")
-    private String from;
-
-    public void sendEmail(String to, String subject, String body) throws MessagingException {
-        MimeMessage message = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
-        helper.setFrom(from);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(body, true);
+    private final EmailOutboxRepository emailOutboxRepository;
 
-        emailSender.send(message);
+    public EmailService(EmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
     }
 
-
+    public void sendEmail(String to, String subject, String body) {
+        EmailOutbox email = emailOutboxRepository.save(new EmailOutbox(to, subject, body, LocalDateTime.now()));
+        logger.debug("E-mail {} para {} enfileirado", email.getId(), to);
+    }
 }
@@ -0,0 +1,21 @@
+package com.pingsocial.service;
+
+/**
+ * Post candidato ao feed ranqueado, com os sinais já calculados para o leitor.
+ *
+ * @param postId          ID do post
+ * @param authorId        ID do autor
+ * @param createdAtMillis Data de criação do post em epoch millis
+ * @param sharedTribes    Quantidade de tribos do post das quais o leitor é membro
+ * @param followStrength  0 se o leitor não segue o autor, 1 se segue, 2 se o seguimento é mútuo
+ * @param distanceKm      Distância entre leitor e autor em km, ou {@link Double#NaN} se desconhecida
+ */
+public record FeedCandidate(
+        long postId,
+        long authorId,
+        long createdAtMillis,
+        int sharedTribes,
+        double followStrength,
+        double distanceKm
+) {
+}
@@ -0,0 +1,18 @@
+package com.pingsocial.service;
+
+/**
+ * Função de pontuação do feed ranqueado. A implementação padrão é {@link WeightedFeedScorer};
+ * para trocá-la, basta declarar outro bean {@code FeedScorer} com {@code @Primary}.
+ * <p>
+ * É chamada para cada candidato de cada requisição, então não deve acessar o banco nem alocar.
+ */
+public interface FeedScorer {
+
+    /**
+     * Pontua um candidato; quanto maior, mais acima no feed.
+     *
+     * @param candidate Candidato com os sinais do leitor
+     * @param nowMillis Instante da requisição em epoch millis
+     */
+    double score(FeedCandidate candidate, long nowMillis);
+}
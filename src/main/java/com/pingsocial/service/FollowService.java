@@ -19,10 +19,13 @@ public class FollowService {
 
     private final UserRepository userRepository;
     private final FollowRepository followRepository;
+    private final HomeTimelineService homeTimelineService;
 
-    public FollowService(UserRepository userRepository, FollowRepository followRepository) {
+    public FollowService(UserRepository userRepository, FollowRepository followRepository,
+                         HomeTimelineService homeTimelineService) {
         this.userRepository = userRepository;
         this.followRepository = followRepository;
+        this.homeTimelineService = homeTimelineService;
     }
 
     /**
@@ -75,6 +78,7 @@ public class FollowService {
         follow.setFollowed(followedOpt.get());
         follow.setCreatedAt(java.time.LocalDateTime.now());
         followRepository.save(follow);
+        homeTimelineService.onFollow(userId, followUserId);
 
         logger.info("Usuário {} agora segue o usuário {}", userId, followUserId);
     }
@@ -118,6 +122,7 @@ public class FollowService {
 
         // Remove a relação de seguimento
         followRepository.deleteByFollowerIdAndFollowedId(userId, followUserId);
+        homeTimelineService.onUnfollow(userId, followUserId);
 
         logger.info("Usuário {} deixou de seguir o usuário {}", userId, followUserId);
     }
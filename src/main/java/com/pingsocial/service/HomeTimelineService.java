@@ -0,0 +1,431 @@
+package com.pingsocial.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timelines pré-computadas dos posts de quem cada usuário segue (filtro FRIENDS_POSTS).
+ * <p>
+ * Ao criar um post, o ID é gravado na timeline de cada seguidor com um único INSERT ... SELECT
+ * sobre follows_tb, e a leitura passa a ser uma fatia da timeline em vez de uma consulta com
+ * a lista inteira de seguidos no IN. A tabela timeline_entries_tb é a fonte da verdade; as
+ * timelines lidas recentemente ficam em memória como anéis de tamanho fixo ({@link PostRing}).
+ * Cada timeline guarda no máximo {@code capacity} posts; o excedente é removido da tabela
+ * em segundo plano.
+ * <p>
+ * Posts de autores com muitos seguidores ({@link AuthorHotListService}) não são distribuídos:
+ * na leitura, a timeline é intercalada por data de criação com as listas desses autores.
+ */
+@Service
+public class HomeTimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomeTimelineService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthorHotListService authorHotListService;
+    private final Map<Long, PostRing> rings = new ConcurrentHashMap<>();
+    private final Set<Long> pendingTrim = ConcurrentHashMap.newKeySet();
+    private final Timer fanOutTimer;
+    private final DistributionSummary fanOutSize;
+    private final Counter fanOutSkipped;
+
+    @Value("${pingsocial.feed.timeline.capacity:800}")
+    private int capacity;
+
+    @Value("${pingsocial.feed.timeline.idle-ttl-ms:600000}")
+    private long idleTtlMs;
+
+    @Value("${pingsocial.feed.timeline.trim-batch-size:500}")
+    private int trimBatchSize;
+
+    public HomeTimelineService(JdbcTemplate jdbcTemplate, AuthorHotListService authorHotListService,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.authorHotListService = authorHotListService;
+        this.fanOutTimer = Timer.builder("pingsocial.feed.fanout.duration")
+                .description("Tempo para distribuir um post nas timelines dos seguidores")
+                .register(meterRegistry);
+        this.fanOutSize = DistributionSummary.builder("pingsocial.feed.fanout.timelines")
+                .description("Timelines gravadas por post distribuído")
+                .register(meterRegistry);
+        this.fanOutSkipped = Counter.builder("pingsocial.feed.fanout.skipped")
+                .description("Posts de autores com muitos seguidores, intercalados na leitura")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava o post na timeline de todos os seguidores do autor e atualiza as timelines em memória.
+     * Posts de autores com muitos seguidores vão apenas para a lista de posts recentes do autor.
+     */
+    public void fanOut(Long authorId, Long postId, LocalDateTime createdAt) {
+        long createdAtMillis = Timestamp.valueOf(createdAt).getTime();
+        if (authorHotListService.isCelebrity(authorId)) {
+            authorHotListService.add(authorId, postId, createdAtMillis);
+            fanOutSkipped.increment();
+            logger.info("Post {} do autor {} mantido na lista de posts recentes, sem distribuição", postId, authorId);
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Long> followerIds = jdbcTemplate.queryForList(
+                "INSERT INTO timeline_entries_tb (user_id, post_id, created_at) " +
+                        "SELECT follower_id, ?, ? FROM follows_tb WHERE followed_id = ? " +
+                        "ON CONFLICT DO NOTHING RETURNING user_id",
+                Long.class, postId, Timestamp.valueOf(createdAt), authorId);
+
+        for (Long followerId : followerIds) {
+            rings.computeIfPresent(followerId, (id, ring) -> {
+                ring.add(postId, createdAtMillis);
+                return ring;
+            });
+        }
+        pendingTrim.addAll(followerIds);
+
+        fanOutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        fanOutSize.record(followerIds.size());
+        logger.info("Post {} distribuído para {} timelines", postId, followerIds.size());
+    }
+
+    /**
+     * Recalcula os autores com muitos seguidores. Os posts recentes de quem caiu abaixo do limite
+     * são gravados nas timelines dos seguidores antes da troca do conjunto, enquanto ainda são
+     * intercalados na leitura; depois da troca, uma segunda passagem grava os posts que chegaram
+     * à lista do autor durante a primeira.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.feed.celebrity.refresh-interval-ms:300000}")
+    public void refreshCelebrities() {
+        Set<Long> current = authorHotListService.findCelebrities();
+        Set<Long> demoted = new HashSet<>(authorHotListService.celebrities());
+        demoted.removeAll(current);
+
+        int limit = authorHotListService.hotListSize();
+        Map<Long, Set<Long>> backfilled = new HashMap<>();
+        for (Long authorId : demoted) {
+            backfilled.put(authorId, fanOutBackfill(authorId, limit, Set.of()));
+        }
+        authorHotListService.replaceCelebrities(current);
+        for (Long authorId : demoted) {
+            fanOutBackfill(authorId, limit, backfilled.get(authorId));
+        }
+
+        if (!demoted.isEmpty()) {
+            logger.info("{} autores voltaram a ter distribuição na escrita", demoted.size());
+        }
+    }
+
+    /**
+     * Grava os {@code limit} posts mais recentes do autor, exceto os de {@code skip}, nas timelines
+     * dos seguidores. As timelines alteradas entram na fila de aparo e são descartadas da memória:
+     * os posts são mais antigos que os do anel, que guarda a ordem de chegada.
+     *
+     * @return IDs dos posts já gravados, incluindo os de {@code skip}
+     */
+    public Set<Long> fanOutBackfill(Long authorId, int limit, Set<Long> skip) {
+        List<Long> recent = jdbcTemplate.queryForList(
+                "SELECT id FROM posts_tb WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT ?",
+                Long.class, authorId, limit);
+        Set<Long> postIds = new HashSet<>(recent);
+        postIds.removeAll(skip);
+
+        if (!postIds.isEmpty()) {
+            Set<Long> followerIds = new HashSet<>(jdbcTemplate.queryForList(
+                    "INSERT INTO timeline_entries_tb (user_id, post_id, created_at) " +
+                            "SELECT f.follower_id, p.id, p.created_at FROM follows_tb f " +
+                            "JOIN posts_tb p ON p.user_id = f.followed_id AND p.id = ANY(?) " +
+                            "WHERE f.followed_id = ? ON CONFLICT DO NOTHING RETURNING user_id",
+                    Long.class, postIds.toArray(new Long[0]), authorId));
+            followerIds.forEach(rings::remove);
+            pendingTrim.addAll(followerIds);
+            logger.info("{} posts recentes do autor {} gravados em {} timelines",
+                    postIds.size(), authorId, followerIds.size());
+        }
+
+        Set<Long> covered = new HashSet<>(skip);
+        covered.addAll(recent);
+        return covered;
+    }
+
+    /**
+     * Obtém os IDs de uma página da timeline do usuário, do post mais recente para o mais antigo,
+     * intercalando a timeline com as listas dos autores com muitos seguidores que ele segue.
+     */
+    public List<Long> page(Long userId, int offset, int limit) {
+        int needed = offset + limit;
+        List<Long> merged = merge(sources(userId, needed), needed, Long.MAX_VALUE, Long.MAX_VALUE);
+        if (offset >= merged.size()) {
+            return List.of();
+        }
+        return merged.subList(offset, merged.size());
+    }
+
+    /**
+     * Obtém os IDs dos próximos {@code limit} posts da timeline posteriores, na ordem da timeline,
+     * à posição (data de criação, ID) do cursor.
+     */
+    public List<Long> pageBefore(Long userId, LocalDateTime createdAt, Long postId, int limit) {
+        long createdAtMillis = Timestamp.valueOf(createdAt).getTime();
+        return merge(sources(userId, Integer.MAX_VALUE), limit, createdAtMillis, postId);
+    }
+
+    public int size(Long userId) {
+        int total = ring(userId).size();
+        for (Long authorId : followedCelebrities(userId)) {
+            total += authorHotListService.hotList(authorId).size();
+        }
+        return total;
+    }
+
+    /**
+     * Indica se a timeline do usuário atingiu a capacidade, ou seja, se posts mais antigos de
+     * quem ele segue podem ter ficado de fora dela.
+     */
+    public boolean isTruncated(Long userId) {
+        return ring(userId).size() >= capacity;
+    }
+
+    /**
+     * Inclui na timeline do usuário os posts recentes de quem ele passou a seguir. Autores com
+     * muitos seguidores já são intercalados na leitura.
+     */
+    public void onFollow(Long userId, Long followedId) {
+        if (!authorHotListService.isCelebrity(followedId)) {
+            int inserted = jdbcTemplate.update(
+                    "INSERT INTO timeline_entries_tb (user_id, post_id, created_at) " +
+                            "SELECT ?, id, created_at FROM posts_tb WHERE user_id = ? ORDER BY id DESC LIMIT ? " +
+                            "ON CONFLICT DO NOTHING",
+                    userId, followedId, capacity);
+            pendingTrim.add(userId);
+            logger.debug("{} posts de {} incluídos na timeline de {}", inserted, followedId, userId);
+        }
+        invalidate(userId);
+    }
+
+    /**
+     * Remove da timeline do usuário os posts de quem ele deixou de seguir.
+     */
+    public void onUnfollow(Long userId, Long followedId) {
+        int removed = jdbcTemplate.update(
+                "DELETE FROM timeline_entries_tb WHERE user_id = ? " +
+                        "AND post_id IN (SELECT id FROM posts_tb WHERE user_id = ?)",
+                userId, followedId);
+        invalidate(userId);
+        logger.debug("{} posts de {} removidos da timeline de {}", removed, followedId, userId);
+    }
+
+    /**
+     * Remove da tabela os posts além da capacidade nas timelines que receberam posts.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.feed.timeline.trim-interval-ms:60000}")
+    public void trim() {
+        List<Object[]> batch = new ArrayList<>();
+        Iterator<Long> iterator = pendingTrim.iterator();
+        while (iterator.hasNext() && batch.size() < trimBatchSize) {
+            Long userId = iterator.next();
+            iterator.remove();
+            batch.add(new Object[]{userId, userId, capacity});
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "DELETE FROM timeline_entries_tb WHERE user_id = ? AND post_id <= (" +
+                        "SELECT post_id FROM timeline_entries_tb WHERE user_id = ? " +
+                        "ORDER BY post_id DESC OFFSET ? LIMIT 1)",
+                batch);
+        logger.debug("Timelines aparadas: {}", batch.size());
+    }
+
+    /**
+     * Descarta da memória as timelines sem leitura recente.
+     */
+    @Scheduled(fixedDelayString = "${pingsocial.feed.timeline.idle-ttl-ms:600000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        int before = rings.size();
+        rings.values().removeIf(ring -> ring.lastReadAt() < cutoff);
+        int removed = before - rings.size();
+        if (removed > 0) {
+            logger.debug("Removidas {} timelines inativas da memória", removed);
+        }
+    }
+
+    private List<Long> followedCelebrities(Long userId) {
+        Set<Long> celebrities = authorHotListService.celebrities();
+        if (celebrities.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT followed_id FROM follows_tb WHERE follower_id = ? AND followed_id = ANY(?)",
+                Long.class, userId, celebrities.toArray(new Long[0]));
+    }
+
+    private List<PostSource> sources(Long userId, int limit) {
+        List<PostSource> sources = new ArrayList<>();
+        sources.add(PostSource.of(ring(userId), limit));
+        for (Long authorId : followedCelebrities(userId)) {
+            sources.add(PostSource.of(authorHotListService.hotList(authorId), limit));
+        }
+        return sources;
+    }
+
+    /**
+     * Intercala as fontes (cada uma do mais recente ao mais antigo) por data de criação e ID,
+     * a partir da posição (beforeAt, beforeId) exclusiva, descartando posts repetidos entre fontes.
+     */
+    private static List<Long> merge(List<PostSource> sources, int limit, long beforeAt, long beforeId) {
+        PriorityQueue<PostSource> heap = new PriorityQueue<>(sources.size(), PostSource::compareHead);
+        for (PostSource source : sources) {
+            source.skipUntilBefore(beforeAt, beforeId);
+            if (source.hasNext()) {
+                heap.add(source);
+            }
+        }
+
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        Set<Long> seen = new HashSet<>();
+        while (!heap.isEmpty() && result.size() < limit) {
+            PostSource source = heap.poll();
+            long postId = source.headPostId();
+            source.advance();
+            if (seen.add(postId)) {
+                result.add(postId);
+            }
+            if (source.hasNext()) {
+                heap.add(source);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Carrega a timeline dentro do computeIfAbsent: um fanOut concorrente para o mesmo usuário
+     * espera a carga terminar e, se o post já veio do banco, {@link PostRing#add} o ignora.
+     */
+    private PostRing ring(Long userId) {
+        PostRing ring = rings.computeIfAbsent(userId, this::load);
+        ring.touch();
+        return ring;
+    }
+
+    private PostRing load(Long userId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT post_id, created_at FROM timeline_entries_tb WHERE user_id = ? ORDER BY post_id DESC LIMIT ?",
+                userId, capacity);
+
+        PostRing ring = new PostRing(capacity);
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            Map<String, Object> row = rows.get(i);
+            ring.add(((Number) row.get("post_id")).longValue(), ((Timestamp) row.get("created_at")).getTime());
+        }
+        logger.debug("Timeline de {} carregada com {} posts", userId, rows.size());
+        return ring;
+    }
+
+    private void invalidate(Long userId) {
+        rings.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rings.remove(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Cópia dos posts mais recentes de um anel, ordenada por data de criação e ID decrescentes.
+     */
+    private static final class PostSource {
+
+        private final long[] postIds;
+        private final long[] createdAt;
+        private final int count;
+        private int position;
+
+        private PostSource(long[] postIds, long[] createdAt, int count) {
+            this.postIds = postIds;
+            this.createdAt = createdAt;
+            this.count = count;
+        }
+
+        static PostSource of(PostRing ring, int limit) {
+            int length = Math.min(limit, ring.size());
+            long[] postIds = new long[length];
+            long[] createdAt = new long[length];
+            int count = ring.copyNewest(length, postIds, createdAt);
+            sortDescending(postIds, createdAt, count);
+            return new PostSource(postIds, createdAt, count);
+        }
+
+        /**
+         * Ordenação por inserção: a ordem de chegada já é quase a ordem de criação, então
+         * o custo fica próximo de linear.
+         */
+        private static void sortDescending(long[] postIds, long[] createdAt, int count) {
+            for (int i = 1; i < count; i++) {
+                long postId = postIds[i];
+                long time = createdAt[i];
+                int j = i - 1;
+                while (j >= 0 && (createdAt[j] < time || (createdAt[j] == time && postIds[j] < postId))) {
+                    postIds[j + 1] = postIds[j];
+                    createdAt[j + 1] = createdAt[j];
+                    j--;
+                }
+                postIds[j + 1] = postId;
+                createdAt[j + 1] = time;
+            }
+        }
+
+        /**
+         * Avança até o primeiro post estritamente anterior à posição (createdAt, postId).
+         */
+        void skipUntilBefore(long beforeAt, long beforeId) {
+            while (position < count && (createdAt[position] > beforeAt
+                    || (createdAt[position] == beforeAt && postIds[position] >= beforeId))) {
+                position++;
+            }
+        }
+
+        boolean hasNext() {
+            return position < count;
+        }
+
+        long headPostId() {
+            return postIds[position];
+        }
+
+        void advance() {
+            position++;
+        }
+
+        int compareHead(PostSource other) {
+            int byTime = Long.compare(other.createdAt[other.position], createdAt[position]);
+            return byTime != 0 ? byTime : Long.compare(other.postIds[other.position], postIds[position]);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.MentionNotificationDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envia as notificações de menção em lotes: as menções de cada usuário são acumuladas e, a
+ * cada intervalo, enviadas em um único frame com a lista para /user/queue/mentions.
+ * Um post que menciona vários usuários, ou vários posts que mencionam o mesmo usuário,
+ * não geram um frame por menção.
+ */
+@Service
+public class MentionNotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MentionNotificationService.class);
+
+    public static final String MENTIONS_DESTINATION = "/queue/mentions";
+
+    private final SimpMessagingTemplate template;
+    private final Map<String, Deque<MentionNotificationDto>> pending = new ConcurrentHashMap<>();
+
+    @Value("${pingsocial.posts.mentions.max-pending-per-user:100}")
+    private int maxPendingPerUser;
+
+    public MentionNotificationService(SimpMessagingTemplate template) {
+        this.template = template;
+    }
+
+    /**
+     * Acumula a menção para o próximo envio. A fila só é alterada dentro do compute, então a
+     * fila removida pelo flush não recebe mais menções.
+     */
+    public void enqueue(String email, MentionNotificationDto notification) {
+        pending.compute(email, (key, queue) -> {
+            Deque<MentionNotificationDto> target = queue != null ? queue : new ArrayDeque<>();
+            if (target.size() >= maxPendingPerUser) {
+                target.pollFirst();
+            }
+            target.addLast(notification);
+            return target;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${pingsocial.posts.mentions.flush-interval-ms:2000}")
+    public void flush() {
+        int sent = 0;
+        for (String email : pending.keySet()) {
+            Deque<MentionNotificationDto> queue = pending.remove(email);
+            if (queue == null) {
+                continue;
+            }
+            List<MentionNotificationDto> batch = new ArrayList<>(queue);
+            try {
+                template.convertAndSendToUser(email, MENTIONS_DESTINATION, batch);
+                sent += batch.size();
+            } catch (Exception e) {
+                logger.error("Erro ao enviar {} menções para {}: {}", batch.size(), email, e.getMessage(), e);
+            }
+        }
+        if (sent > 0) {
+            logger.debug("{} notificações de menção enviadas", sent);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.pingsocial.service;
+
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.models.PendingDelivery;
+import com.pingsocial.repository.ChatMessageRepository;
+import com.pingsocial.repository.PendingDeliveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filas de entrega pendente para destinatários sem sessão inscrita em "/user/queue/messages".
+ * <p>
+ * Cada entrega pendente é gravada em chat_pending_deliveries_tb (apenas o ID da mensagem, que
+ * já está salva), então sobrevive a um reinício. As mensagens também ficam em memória, até um
+ * limite por usuário e um limite global, para que o envio não precise relê-las. Na primeira
+ * inscrição do usuário a fila é esvaziada em frames com o header "batch: true", cada um com uma
+ * lista de mensagens em ordem de ID; as linhas só são removidas depois que o frame é aceito
+ * pelo broker.
+ */
+@Service
+public class PendingDeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingDeliveryService.class);
+
+    public static final String MESSAGES_SUBSCRIPTION = "/user" + ChatDeliveryService.MESSAGES_DESTINATION;
+    public static final String BATCH_HEADER = "batch";
+
+    private final SimpMessagingTemplate template;
+    private final SimpUserRegistry userRegistry;
+    private final PendingDeliveryRepository pendingDeliveryRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final Map<String, Deque<ChatMessage>> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedInMemory = new AtomicInteger();
+    private final Map<String, AtomicBoolean> flushing = new ConcurrentHashMap<>();
+
+    @Value("${pingsocial.chat.pending.max-per-user:200}")
+    private int maxPerUser;
+
+    @Value("${pingsocial.chat.pending.max-in-memory:50000}")
+    private int maxInMemory;
+
+    @Value("${pingsocial.chat.pending.batch-size:200}")
+    private int batchSize;
+
+    public PendingDeliveryService(SimpMessagingTemplate template, SimpUserRegistry userRegistry,
+                                  PendingDeliveryRepository pendingDeliveryRepository,
+                                  ChatMessageRepository chatMessageRepository) {
+        this.template = template;
+        this.userRegistry = userRegistry;
+        this.pendingDeliveryRepository = pendingDeliveryRepository;
+        this.chatMessageRepository = chatMessageRepository;
+    }
+
+    /**
+     * Verifica se o usuário tem alguma sessão inscrita no destino de mensagens.
+     */
+    public boolean isOnline(String email) {
+        SimpUser user = userRegistry.getUser(email);
+        return user != null && user.getSessions().stream()
+                .flatMap(session -> session.getSubscriptions().stream())
+                .anyMatch(subscription -> MESSAGES_SUBSCRIPTION.equals(subscription.getDestination()));
+    }
+
+    /**
+     * Guarda uma mensagem para um destinatário offline. Se o destinatário se conectar durante
+     * o enfileiramento, a fila é esvaziada em seguida para não ficar retida até a próxima conexão.
+     * <p>
+     * A fila em memória de cada usuário só é alterada dentro do compute do mapa; o flush a
+     * retira com remove, então uma fila retirada não recebe mais mensagens.
+     */
+    public void enqueue(ChatMessage message) {
+        String recipient = message.getRecipient();
+        if (message.getId() == null) {
+            logger.warn("Mensagem sem ID para {} não pode ficar pendente, ignorando", recipient);
+            return;
+        }
+
+        pendingDeliveryRepository.save(new PendingDelivery(recipient, message.getId(), LocalDateTime.now()));
+        queues.compute(recipient, (key, queue) -> {
+            Deque<ChatMessage> target = queue != null ? queue : new ArrayDeque<>();
+            if (target.size() < maxPerUser && queuedInMemory.get() < maxInMemory) {
+                target.addLast(message);
+                queuedInMemory.incrementAndGet();
+            } else {
+                logger.debug("Fila em memória de {} cheia, mensagem {} será lida do banco", recipient, message.getId());
+            }
+            return target.isEmpty() ? null : target;
+        });
+
+        if (isOnline(recipient)) {
+            flush(recipient);
+        }
+    }
+
+    /**
+     * Entrega ao usuário todas as mensagens pendentes. Um flush por usuário de cada vez: uma
+     * chamada durante outro flush do mesmo usuário apenas pede que ele rode de novo ao terminar.
+     */
+    public void flush(String email) {
+        AtomicBoolean requested = new AtomicBoolean(true);
+        AtomicBoolean running = flushing.putIfAbsent(email, requested);
+        if (running != null) {
+            running.set(true);
+            return;
+        }
+
+        try {
+            while (requested.getAndSet(false)) {
+                deliver(email);
+            }
+        } finally {
+            flushing.remove(email);
+        }
+        if (requested.get()) {
+            flush(email);
+        }
+    }
+
+    /**
+     * Envia as entregas gravadas no banco em lotes, usando as mensagens em memória quando
+     * disponíveis. As linhas de um lote só são removidas depois do envio; se ele falhar, ficam
+     * para o próximo flush.
+     */
+    private void deliver(String email) {
+        Map<Long, ChatMessage> cached = new HashMap<>();
+        Deque<ChatMessage> queue = queues.remove(email);
+        if (queue != null) {
+            queue.forEach(message -> cached.put(message.getId(), message));
+            queuedInMemory.addAndGet(-queue.size());
+        }
+
+        int delivered = 0;
+        List<PendingDelivery> rows;
+        do {
+            rows = pendingDeliveryRepository.findByRecipientOrderByIdAsc(email, Limit.of(batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Long> missing = rows.stream()
+                    .map(PendingDelivery::getMessageId)
+                    .filter(id -> !cached.containsKey(id))
+                    .distinct()
+                    .toList();
+            if (!missing.isEmpty()) {
+                chatMessageRepository.findAllById(missing).forEach(message -> cached.put(message.getId(), message));
+            }
+
+            List<ChatMessage> batch = rows.stream()
+                    .map(row -> cached.get(row.getMessageId()))
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted(Comparator.comparing(ChatMessage::getId))
+                    .toList();
+            if (!batch.isEmpty()) {
+                template.convertAndSendToUser(email, ChatDeliveryService.MESSAGES_DESTINATION, new ArrayList<>(batch),
+                        Map.of(BATCH_HEADER, "true"));
+            }
+            pendingDeliveryRepository.deleteAllInBatch(rows);
+            delivered += batch.size();
+        } while (rows.size() == batchSize);
+
+        if (delivered > 0) {
+            logger.info("{} mensagens pendentes entregues para {}", delivered, email);
+        }
+    }
+}
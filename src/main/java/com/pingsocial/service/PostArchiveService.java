@@ -0,0 +1,449 @@
+package com.pingsocial.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pingsocial.dto.ResponsePost;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Arquiva as partições mensais antigas de posts_tb em arquivos JSON Lines compactados (gzip).
+ * <p>
+ * Cada partição mais antiga que {@code retention-months} é desanexada de posts_tb com
+ * DETACH PARTITION ... CONCURRENTLY (sem bloquear as consultas do feed), exportada para
+ * {@code <dir>/<partição>.jsonl.gz} e removida, junto com suas linhas em post_tribes,
+ * post_tags_tb e timeline_entries_tb. O andamento fica em post_archives_tb; uma partição em
+ * desanexação ou desanexada e ainda não exportada é retomada na próxima execução.
+ * <p>
+ * O arquivo é gravado em ordem de ID, em blocos gzip independentes (concatenados, o arquivo
+ * continua legível como um único gzip), com um índice esparso ao lado
+ * ({@code <partição>.jsonl.gz.idx}: primeiro ID e posição de cada bloco). Permalinks de posts
+ * arquivados são lidos do arquivo localizado pelo intervalo de IDs registrado no
+ * arquivamento, descompactando apenas o bloco que pode conter o post.
+ */
+@Service
+public class PostArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostArchiveService.class);
+
+    private static final String STATUS_DETACHING = "DETACHING";
+    private static final String STATUS_DETACHED = "DETACHED";
+    private static final String STATUS_ARCHIVED = "ARCHIVED";
+    private static final String FILE_SUFFIX = ".jsonl.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostPartitionService postPartitionService;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, ResponsePost> recentlyRead;
+    private final Set<Long> recentMisses;
+    private final Map<String, long[][]> blockIndexes = new ConcurrentHashMap<>();
+
+    @Value("${pingsocial.posts.archive.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${pingsocial.posts.archive.dir:data/post-archive}")
+    private String archiveDir;
+
+    @Value("${pingsocial.posts.archive.posts-per-block:500}")
+    private int postsPerBlock;
+
+    public PostArchiveService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              PostPartitionService postPartitionService, ObjectMapper objectMapper,
+                              @Value("${pingsocial.posts.archive.cached-posts:1000}") int cachedPosts) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Lê a partição em blocos (cursor do servidor dentro da transação) em vez de carregá-la inteira
+        this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportTemplate.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.postPartitionService = postPartitionService;
+        this.objectMapper = objectMapper;
+        this.recentlyRead = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ResponsePost> eldest) {
+                return size() > cachedPosts;
+            }
+        });
+        this.recentMisses = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > cachedPosts;
+            }
+        }));
+    }
+
+    @Scheduled(cron = "${pingsocial.posts.archive.cron:0 30 3 * * *}")
+    public void archiveOldPartitions() {
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+
+        List<String> detaching = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM post_archives_tb WHERE status = ? ORDER BY partition_name",
+                String.class, STATUS_DETACHING);
+        for (String partition : detaching) {
+            finishDetach(partition);
+        }
+
+        for (String partition : postPartitionService.attachedPartitions()) {
+            YearMonth month = PostPartitionService.monthOf(partition);
+            if (!month.isBefore(oldestKept)) {
+                break;
+            }
+            detach(partition, month);
+        }
+
+        List<String> pending = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM post_archives_tb WHERE status = ? ORDER BY partition_name",
+                String.class, STATUS_DETACHED);
+        for (String partition : pending) {
+            try {
+                export(partition);
+            } catch (RuntimeException ex) {
+                logger.error("Erro ao arquivar a partição {}: {}", partition, ex.getMessage(), ex);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Procura um post nas partições arquivadas, lendo apenas o bloco do arquivo que pode contê-lo
+     * (ou o arquivo inteiro, se ele não tiver índice). Os arquivos são gravados em ordem de ID,
+     * então a leitura para no primeiro post com ID maior que o procurado. IDs sem post no arquivo
+     * (posts removidos antes do arquivamento) também ficam em cache, já que um arquivo não muda
+     * depois de gravado.
+     */
+    public Optional<ResponsePost> find(long postId) {
+        ResponsePost cached = recentlyRead.get(postId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (recentMisses.contains(postId)) {
+            return Optional.empty();
+        }
+
+        List<String> files = jdbcTemplate.queryForList(
+                "SELECT file_path FROM post_archives_tb WHERE status = ? AND ? BETWEEN min_id AND max_id",
+                String.class, STATUS_ARCHIVED, postId);
+        boolean complete = !files.isEmpty();
+        for (String file : files) {
+            try (InputStream in = openBlock(Paths.get(file), postId)) {
+                ResponsePost post = in != null ? scan(in, postId) : null;
+                if (post != null) {
+                    recentlyRead.put(postId, post);
+                    return Optional.of(post);
+                }
+            } catch (IOException ex) {
+                complete = false;
+                logger.error("Erro ao ler o arquivo de posts arquivados {}: {}", file, ex.getMessage(), ex);
+            }
+        }
+        if (complete) {
+            recentMisses.add(postId);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Descompacta o bloco do arquivo que pode conter o post, localizado pelo índice esparso.
+     *
+     * @return null se o ID for menor que o primeiro do arquivo
+     */
+    private InputStream openBlock(Path file, long postId) throws IOException {
+        long[][] index = blockIndex(file);
+        if (index == null) {
+            return new GZIPInputStream(Files.newInputStream(file));
+        }
+
+        long[] firstIds = index[0];
+        long[] offsets = index[1];
+        int block = Arrays.binarySearch(firstIds, postId);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        if (block < 0) {
+            return null;
+        }
+
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            long end = block + 1 < offsets.length ? offsets[block + 1] : channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - offsets[block]));
+            channel.position(offsets[block]);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // lê o bloco inteiro
+            }
+            return new GZIPInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.position()));
+        }
+    }
+
+    private ResponsePost scan(InputStream in, long postId) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ResponsePost post = objectMapper.readValue(line, ResponsePost.class);
+            if (post.id() == postId) {
+                return post;
+            }
+            if (post.id() > postId) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lê (uma vez por arquivo) o índice esparso: primeiros IDs e posições dos blocos.
+     *
+     * @return null para arquivos gravados sem índice
+     */
+    private long[][] blockIndex(Path file) throws IOException {
+        String key = file.toString();
+        long[][] cached = blockIndexes.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.resolveSibling(file.getFileName() + INDEX_SUFFIX), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+        long[][] index = new long[2][lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            String[] parts = lines.get(i).split(" ");
+            index[0][i] = Long.parseLong(parts[0]);
+            index[1][i] = Long.parseLong(parts[1]);
+        }
+        blockIndexes.put(key, index);
+        return index;
+    }
+
+    /**
+     * Registra a partição como em desanexação e a desanexa sem transação: o DETACH ... CONCURRENTLY
+     * não bloqueia as consultas de posts_tb, mas não pode rodar dentro de uma transação.
+     */
+    private void detach(String partition, YearMonth month) {
+        jdbcTemplate.update("INSERT INTO post_archives_tb (partition_name, range_start, range_end, status) " +
+                        "VALUES (?, ?, ?, ?) ON CONFLICT (partition_name) DO NOTHING",
+                partition, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay(), STATUS_DETACHING);
+        finishDetach(partition);
+    }
+
+    /**
+     * Conclui a desanexação. Se uma execução anterior foi interrompida no meio do
+     * DETACH ... CONCURRENTLY, a partição fica pendente e é concluída com FINALIZE.
+     */
+    private void finishDetach(String partition) {
+        List<Boolean> pending = jdbcTemplate.queryForList(
+                "SELECT inhdetachpending FROM pg_inherits WHERE inhparent = 'posts_tb'::regclass " +
+                        "AND inhrelid = to_regclass(?)",
+                Boolean.class, partition);
+        if (!pending.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE posts_tb DETACH PARTITION " + partition
+                    + (Boolean.TRUE.equals(pending.get(0)) ? " FINALIZE" : " CONCURRENTLY"));
+        }
+        jdbcTemplate.update("UPDATE post_archives_tb SET status = ?, detached_at = CURRENT_TIMESTAMP " +
+                "WHERE partition_name = ?", STATUS_DETACHED, partition);
+        logger.info("Partição {} desanexada de posts_tb para arquivamento", partition);
+    }
+
+    /**
+     * Exporta a partição desanexada para o arquivo compactado e, depois de gravado, remove a
+     * tabela e as linhas dependentes em uma transação.
+     */
+    private void export(String partition) {
+        Path dir = Paths.get(archiveDir);
+        Path target = dir.resolve(partition + FILE_SUFFIX);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Path index = target.resolveSibling(target.getFileName() + INDEX_SUFFIX);
+        Path indexTmp = index.resolveSibling(index.getFileName() + ".tmp");
+        long[] stats = {0, Long.MAX_VALUE, Long.MIN_VALUE};
+
+        try {
+            Files.createDirectories(dir);
+            BlockWriter writer = new BlockWriter(Files.newOutputStream(tmp), postsPerBlock);
+            try (writer) {
+                transactionTemplate.executeWithoutResult(status -> exportTemplate.query(
+                        "SELECT p.id, u.nickname, " +
+                                "(SELECT ARRAY_AGG(pt.tribe_id) FROM post_tribes pt WHERE pt.post_id = p.id), " +
+                                "p.content, p.created_at " +
+                                "FROM " + partition + " p LEFT JOIN users_tb u ON u.id = p.user_id ORDER BY p.id",
+                        rs -> {
+                            ResponsePost post = toResponse(rs);
+                            try {
+                                writer.write(post.id(), objectMapper.writeValueAsString(post));
+                            } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                            stats[0]++;
+                            stats[1] = Math.min(stats[1], post.id());
+                            stats[2] = Math.max(stats[2], post.id());
+                        }));
+            }
+            Files.write(indexTmp, writer.index(), StandardCharsets.UTF_8);
+            Files.move(indexTmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            blockIndexes.remove(target.toAbsolutePath().toString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Erro ao gravar " + target, ex);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM post_tribes WHERE post_id IN (SELECT id FROM " + partition + ")");
+            jdbcTemplate.update("DELETE FROM timeline_entries_tb WHERE post_id IN (SELECT id FROM " + partition + ")");
+            jdbcTemplate.update("DELETE FROM post_tags_tb WHERE post_id IN (SELECT id FROM " + partition + ")");
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            jdbcTemplate.update("UPDATE post_archives_tb SET status = ?, row_count = ?, min_id = ?, max_id = ?, " +
+                            "file_path = ?, archived_at = CURRENT_TIMESTAMP WHERE partition_name = ?",
+                    STATUS_ARCHIVED, stats[0], stats[0] > 0 ? stats[1] : null, stats[0] > 0 ? stats[2] : null,
+                    target.toAbsolutePath().toString(), partition);
+        });
+        logger.info("Partição {} arquivada em {} ({} posts)", partition, target, stats[0]);
+    }
+
+    private static ResponsePost toResponse(ResultSet rs) throws SQLException {
+        Set<Long> tribeIds = new HashSet<>();
+        Array array = rs.getArray(3);
+        if (array != null) {
+            for (Object element : (Object[]) array.getArray()) {
+                tribeIds.add(((Number) element).longValue());
+            }
+        }
+        return new ResponsePost(
+                rs.getLong(1),
+                rs.getString(2),
+                tribeIds,
+                rs.getString(4),
+                rs.getTimestamp(5).toLocalDateTime()
+        );
+    }
+
+    /**
+     * Grava as linhas em blocos gzip independentes de até {@code postsPerBlock} posts,
+     * registrando o primeiro ID e a posição no arquivo de cada bloco.
+     */
+    private static final class BlockWriter implements Closeable {
+
+        private final CountingOutputStream out;
+        private final int postsPerBlock;
+        private final List<String> index = new ArrayList<>();
+        private Writer writer;
+        private int inBlock;
+
+        private BlockWriter(OutputStream out, int postsPerBlock) {
+            this.out = new CountingOutputStream(new BufferedOutputStream(out));
+            this.postsPerBlock = postsPerBlock;
+        }
+
+        void write(long id, String line) throws IOException {
+            if (writer == null || inBlock >= postsPerBlock) {
+                finishBlock();
+                index.add(id + " " + out.count);
+                writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8));
+                inBlock = 0;
+            }
+            writer.write(line);
+            writer.write('\n');
+            inBlock++;
+        }
+
+        List<String> index() {
+            return index;
+        }
+
+        private void finishBlock() throws IOException {
+            if (writer != null) {
+                // Fecha o gzip do bloco (e libera o Deflater) sem fechar o arquivo
+                writer.close();
+                writer = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finishBlock();
+            } finally {
+                out.closeFile();
+            }
+        }
+    }
+
+    /**
+     * Conta os bytes gravados; close só descarrega o buffer, para que cada bloco gzip possa
+     * ser fechado sem fechar o arquivo.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+
+        void closeFile() throws IOException {
+            out.close();
+        }
+    }
+}
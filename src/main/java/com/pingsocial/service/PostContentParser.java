@@ -0,0 +1,76 @@
+package com.pingsocial.service;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extrai hashtags e menções do conteúdo de um post.
+ * Hashtags são normalizadas sem acentos e em minúsculas ("#Ação" e "#acao" são a mesma tag);
+ * menções mantêm o apelido como escrito, já que apelidos são comparados exatamente.
+ */
+public final class PostContentParser {
+
+    private static final Pattern HASHTAG = Pattern.compile("(?<![\\p{L}\\p{N}_#])#([\\p{L}\\p{N}_]{1,100})");
+    private static final Pattern MENTION = Pattern.compile("(?<![\\p{L}\\p{N}_@.])@([\\p{L}\\p{N}_.\\-]{1,100})");
+    private static final int MAX_PER_POST = 20;
+
+    public static final String HASHTAG_PREFIX = "#";
+    public static final String MENTION_PREFIX = "@";
+
+    private PostContentParser() {
+    }
+
+    /**
+     * Extrai as hashtags distintas, normalizadas e sem o "#", na ordem em que aparecem.
+     */
+    public static Set<String> hashtags(String content) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (content == null) {
+            return tags;
+        }
+        Matcher matcher = HASHTAG.matcher(content);
+        while (matcher.find() && tags.size() < MAX_PER_POST) {
+            tags.add(normalizeTag(matcher.group(1)));
+        }
+        return tags;
+    }
+
+    /**
+     * Extrai os apelidos mencionados, sem o "@", na ordem em que aparecem.
+     */
+    public static Set<String> mentions(String content) {
+        Set<String> nicknames = new LinkedHashSet<>();
+        if (content == null) {
+            return nicknames;
+        }
+        Matcher matcher = MENTION.matcher(content);
+        while (matcher.find() && nicknames.size() < MAX_PER_POST) {
+            // Pontuação no fim da frase ("@ana.") não faz parte do apelido
+            String nickname = matcher.group(1).replaceAll("[.\\-]+$", "");
+            if (!nickname.isEmpty()) {
+                nicknames.add(nickname);
+            }
+        }
+        return nicknames;
+    }
+
+    /**
+     * Remove as hashtags e menções do conteúdo, deixando só o texto livre.
+     */
+    public static String stripTags(String content) {
+        if (content == null) {
+            return "";
+        }
+        return MENTION.matcher(HASHTAG.matcher(content).replaceAll(" ")).replaceAll(" ");
+    }
+
+    /**
+     * Normaliza uma tag informada pelo usuário, com ou sem "#".
+     */
+    public static String normalizeTag(String tag) {
+        String value = tag.startsWith(HASHTAG_PREFIX) ? tag.substring(1) : tag;
+        return ChatTextTokenizer.normalize(value.trim());
+    }
+}
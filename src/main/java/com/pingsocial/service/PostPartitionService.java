@@ -0,0 +1,83 @@
+package com.pingsocial.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mantém as partições mensais de posts_tb (V25): garante que existam partições para os
+ * próximos meses. Não há partição padrão (ela impediria o DETACH PARTITION ... CONCURRENTLY
+ * do arquivamento), então um post de um mês sem partição é rejeitado pelo banco.
+ */
+@Service
+public class PostPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostPartitionService.class);
+
+    static final String PARTITION_PREFIX = "posts_tb_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${pingsocial.posts.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    public PostPartitionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${pingsocial.posts.partitions.check-interval-ms:21600000}")
+    public void ensureFuturePartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (exists(name)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s PARTITION OF posts_tb FOR VALUES FROM ('%s') TO ('%s')",
+                        name, month.atDay(1), month.plusMonths(1).atDay(1)));
+                logger.info("Partição {} criada", name);
+            } catch (RuntimeException ex) {
+                logger.error("Erro ao criar a partição {}: {}", name, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Lista as partições mensais anexadas a posts_tb, da mais antiga para a mais recente.
+     */
+    public List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'posts_tb'::regclass AND c.relname LIKE 'posts\\_tb\\_y%' ORDER BY c.relname",
+                String.class);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.atDay(1).format(SUFFIX);
+    }
+
+    /**
+     * Obtém o mês de uma partição a partir do nome (posts_tb_yAAAAmMM).
+     */
+    static YearMonth monthOf(String partitionName) {
+        return YearMonth.from(LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()) + "d01",
+                DateTimeFormatter.ofPattern("'y'yyyy'm'MM'd'dd")));
+    }
+
+    private boolean exists(String name) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,62 @@
+package com.pingsocial.service;
+
+/**
+ * Anel de posts (ID e data de criação em epoch millis) em arrays primitivos de tamanho fixo;
+ * quando cheio, o post mais antigo é sobrescrito. Usado pelas timelines e pelas listas de
+ * posts recentes dos autores com muitos seguidores.
+ */
+final class PostRing {
+
+    private final long[] postIds;
+    private final long[] createdAt;
+    private int next;
+    private int size;
+    private volatile long lastReadAt = System.currentTimeMillis();
+
+    PostRing(int capacity) {
+        this.postIds = new long[capacity];
+        this.createdAt = new long[capacity];
+    }
+
+    /**
+     * Adiciona o post, ignorando-o se já estiver no anel.
+     */
+    synchronized void add(long postId, long createdAtMillis) {
+        for (int i = 0; i < size; i++) {
+            if (postIds[i] == postId) {
+                return;
+            }
+        }
+        postIds[next] = postId;
+        createdAt[next] = createdAtMillis;
+        next = (next + 1) % postIds.length;
+        size = Math.min(size + 1, postIds.length);
+    }
+
+    /**
+     * Copia até {@code limit} posts, do mais recente ao mais antigo em ordem de chegada.
+     *
+     * @return quantidade de posts copiados
+     */
+    synchronized int copyNewest(int limit, long[] postIdsOut, long[] createdAtOut) {
+        int count = Math.min(limit, size);
+        for (int i = 0; i < count; i++) {
+            int index = Math.floorMod(next - 1 - i, postIds.length);
+            postIdsOut[i] = postIds[index];
+            createdAtOut[i] = createdAt[index];
+        }
+        return count;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    void touch() {
+        lastReadAt = System.currentTimeMillis();
+    }
+
+    long lastReadAt() {
+        return lastReadAt;
+    }
+}
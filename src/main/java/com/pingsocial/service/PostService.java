@@ -1,7 +1,9 @@
 package com.pingsocial.service;
 
 import com.pingsocial.dto.CreatePostDto;
-import com.pingsocial.dto.FollowListDto;
+import com.pingsocial.dto.CursorPageDto;
+import com.pingsocial.dto.KeysetCursor;
+import com.pingsocial.dto.RankedFeedCursor;
 import com.pingsocial.dto.ResponsePost;
 import com.pingsocial.exception.UserNotFoundException;
 import com.pingsocial.models.Post;
@@ -9,17 +11,27 @@ import com.pingsocial.models.PostFilterType;
 import com.pingsocial.models.Tribe;
 import com.pingsocial.models.User;
 import com.pingsocial.repository.PostRepository;
+import com.pingsocial.repository.TribeRepository;
 import com.pingsocial.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,14 +41,29 @@ public class PostService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final TribeService tribeService;
-    private final FollowService followService;
+    private final HomeTimelineService homeTimelineService;
+    private final RankedFeedService rankedFeedService;
+    private final TribeRepository tribeRepository;
+    private final TribeMembershipCache tribeMembershipCache;
+    private final PostArchiveService postArchiveService;
+    private final PostTagService postTagService;
+    private final TrendingService trendingService;
 
     public PostService(PostRepository postRepository, UserRepository userRepository,
-                       TribeService tribeService, FollowService followService) {
+                       TribeService tribeService, HomeTimelineService homeTimelineService,
+                       RankedFeedService rankedFeedService, TribeRepository tribeRepository,
+                       TribeMembershipCache tribeMembershipCache, PostArchiveService postArchiveService,
+                       PostTagService postTagService, TrendingService trendingService) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.tribeService = tribeService;
-        this.followService = followService;
+        this.homeTimelineService = homeTimelineService;
+        this.rankedFeedService = rankedFeedService;
+        this.tribeRepository = tribeRepository;
+        this.tribeMembershipCache = tribeMembershipCache;
+        this.postArchiveService = postArchiveService;
+        this.postTagService = postTagService;
+        this.trendingService = trendingService;
     }
 
     public Page<ResponsePost> getPosts(Long userId, PostFilterType filterType, Pageable pageable) {
@@ -73,15 +100,22 @@ public class PostService {
                 postPage = postRepository.findByTribes_IdIn(tribeIds, pageable);
                 break;
             case FRIENDS_POSTS:
-                List<FollowListDto> friends = followService.getFollowing(userId);
-                List<Long> friendUserIds = friends.stream()
-                        .map(FollowListDto::followedUserId)
-                        .collect(Collectors.toList());
-                if (friendUserIds.isEmpty()) {
-                    logger.warn("Usuário {} não segue ninguém", userId);
+                postPage = getTimelinePage(userId, pageable);
+                if (postPage.isEmpty() && homeTimelineService.isTruncated(userId)) {
+                    logger.info("Página além da timeline do usuário {}, consultando pela junção com follows", userId);
+                    postPage = postRepository.findFollowedPosts(userId, pageable);
+                }
+                break;
+            case RANKED:
+                if (pageable.getOffset() >= rankedFeedService.maxResults()) {
                     return Page.empty(pageable);
                 }
-                postPage = postRepository.findByAuthor_IdIn(friendUserIds, pageable);
+                List<Long> ranked = rankedFeedService.rank(userId,
+                        (int) Math.min(pageable.getOffset() + pageable.getPageSize(), rankedFeedService.maxResults()));
+                List<Long> rankedPage = pageable.getOffset() >= ranked.size()
+                        ? List.of()
+                        : ranked.subList((int) pageable.getOffset(), ranked.size());
+                postPage = new PageImpl<>(findAllInOrder(rankedPage), pageable, ranked.size());
                 break;
             default:
                 throw new IllegalArgumentException("Tipo de filtro de post desconhecido: " + filterType);
@@ -89,13 +123,240 @@ public class PostService {
 
 
         logger.info("Posts obtidos com sucesso: {} posts encontrados", postPage.getTotalElements());
-        return postPage.map(post -> new ResponsePost(
-                post.getId(),
-                post.getAuthor().getNickname(),
-                post.getTribes().stream().map(Tribe::getId).collect(Collectors.toSet()),
-                post.getContent(),
-                post.getCreatedAt()
-        ));
+        return postPage.map(this::toResponse);
+    }
+
+    /**
+     * Obtém posts paginados por cursor (createdAt, id), do mais recente para o mais antigo,
+     * sem consulta de contagem. Busca um item a mais para saber se há próxima página.
+     * <p>
+     * Cada página é lida com um único SELECT que já traz o apelido do autor e os IDs das tribos
+     * de cada post, sem carregar as entidades (e seus relacionamentos lazy) post a post.
+     *
+     * @param cursor Cursor opaco retornado pela página anterior (ou null para a primeira página)
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public CursorPageDto<ResponsePost> getFeed(Long userId, PostFilterType filterType, String cursor, int size) {
+        logger.info("Obtendo feed do usuário {} com filtro {} (cursor: {})", userId, filterType, cursor);
+
+        if (userId == null || filterType == null) {
+            logger.error("IDs de usuário ou tipo de filtro não podem ser nulos. userId={}, filterType={}", userId, filterType);
+            throw new IllegalArgumentException("IDs de usuário e tipo de filtro não podem ser nulos");
+        }
+
+        if (filterType == PostFilterType.RANKED) {
+            return getRankedFeed(userId, cursor, size);
+        }
+
+        KeysetCursor position = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        int limit = size + 1;
+
+        List<Object[]> rows = switch (filterType) {
+            case ALL -> position == null
+                    ? postRepository.findFeedRows(limit)
+                    : postRepository.findFeedRowsBefore(position.at(), position.id(), limit);
+            case MY_POSTS -> position == null
+                    ? postRepository.findFeedRowsByAuthor(userId, limit)
+                    : postRepository.findFeedRowsByAuthorBefore(userId, position.at(), position.id(), limit);
+            case TRIBE_POSTS -> {
+                Set<Long> tribeIds = tribeService.getTribeIdsByUserId(userId);
+                if (tribeIds.isEmpty()) {
+                    logger.warn("Usuário {} não pertence a nenhuma tribo", userId);
+                    yield List.of();
+                }
+                yield position == null
+                        ? postRepository.findFeedRowsByTribes(tribeIds, limit)
+                        : postRepository.findFeedRowsByTribesBefore(tribeIds, position.at(), position.id(), limit);
+            }
+            case FRIENDS_POSTS -> getFriendsFeedRows(userId, position, limit);
+            case RANKED -> throw new IllegalStateException("Feed ranqueado é paginado por posição");
+        };
+
+        boolean hasNext = rows.size() > size;
+        List<ResponsePost> page = (hasNext ? rows.subList(0, size) : rows).stream()
+                .map(PostService::toResponse)
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            ResponsePost last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.createdAt(), last.id()).encode();
+        }
+
+        logger.info("Feed do usuário {}: {} posts (próxima página: {})", userId, page.size(), hasNext);
+        return CursorPageDto.of(page, nextCursor);
+    }
+
+    /**
+     * Obtém uma página do feed ranqueado. O cursor guarda a posição no ranking, que é
+     * recalculado a cada página com K = posição + tamanho + 1, limitado ao orçamento de
+     * candidatos (posições além dele retornam uma página vazia).
+     */
+    private CursorPageDto<ResponsePost> getRankedFeed(Long userId, String cursor, int size) {
+        int offset = cursor == null || cursor.isBlank() ? 0 : RankedFeedCursor.decode(cursor).offset();
+        int maxResults = rankedFeedService.maxResults();
+        if (offset >= maxResults) {
+            logger.info("Posição {} além do ranking do usuário {} ({} posts)", offset, userId, maxResults);
+            return CursorPageDto.of(List.of(), null);
+        }
+        List<Long> ranked = rankedFeedService.rank(userId, (int) Math.min((long) offset + size + 1, maxResults));
+        List<Long> ids = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+
+        boolean hasNext = ids.size() > size;
+        List<ResponsePost> page = findFeedRowsInOrder(hasNext ? ids.subList(0, size) : ids).stream()
+                .map(PostService::toResponse)
+                .toList();
+        String nextCursor = hasNext ? new RankedFeedCursor(offset + size).encode() : null;
+
+        logger.info("Feed ranqueado do usuário {}: {} posts (próxima página: {})", userId, page.size(), hasNext);
+        return CursorPageDto.of(page, nextCursor);
+    }
+
+    /**
+     * Lê o feed de amigos da timeline pré-computada. Quando a timeline atingiu a capacidade e a
+     * página passa do fim dela, o restante vem da junção de posts_tb com follows_tb a partir do
+     * último post lido, sem carregar a lista de seguidos na aplicação.
+     */
+    private List<Object[]> getFriendsFeedRows(Long userId, KeysetCursor position, int limit) {
+        List<Long> ids = position == null
+                ? homeTimelineService.page(userId, 0, limit)
+                : homeTimelineService.pageBefore(userId, position.at(), position.id(), limit);
+        List<Object[]> rows = findFeedRowsInOrder(ids);
+        if (rows.size() >= limit || !homeTimelineService.isTruncated(userId)) {
+            return rows;
+        }
+
+        KeysetCursor from = position;
+        if (!rows.isEmpty()) {
+            ResponsePost last = toResponse(rows.get(rows.size() - 1));
+            from = new KeysetCursor(last.createdAt(), last.id());
+        }
+        int remaining = limit - rows.size();
+        List<Object[]> pulled = from == null
+                ? postRepository.findFeedRowsByFollower(userId, remaining)
+                : postRepository.findFeedRowsByFollowerBefore(userId, from.at(), from.id(), remaining);
+        logger.debug("Feed de amigos do usuário {}: {} posts da timeline e {} da junção com follows",
+                userId, rows.size(), pulled.size());
+
+        List<Object[]> combined = new ArrayList<>(rows);
+        combined.addAll(pulled);
+        return combined;
+    }
+
+    /**
+     * Carrega as linhas do feed dos posts informados, na ordem dos IDs.
+     */
+    private List<Object[]> findFeedRowsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Object[]> rowsById = postRepository.findFeedRowsByIds(ids).stream()
+                .collect(Collectors.toMap(row -> ((Number) row[0]).longValue(), Function.identity()));
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Converte uma linha (id, nickname, tribe_ids, content, created_at) das consultas findFeedRows*.
+     * O array de tribos chega como array Java ou {@link java.sql.Array}, conforme o driver, e é
+     * nulo quando o post não tem tribos.
+     */
+    private static ResponsePost toResponse(Object[] row) {
+        return new ResponsePost(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                toTribeIds(row[2]),
+                (String) row[3],
+                row[4] instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) row[4]
+        );
+    }
+
+    private static Set<Long> toTribeIds(Object value) {
+        if (value == null) {
+            return Set.of();
+        }
+        try {
+            Object[] elements = value instanceof Array array ? (Object[]) array.getArray() : (Object[]) value;
+            Set<Long> tribeIds = new HashSet<>();
+            for (Object element : elements) {
+                tribeIds.add(((Number) element).longValue());
+            }
+            return tribeIds;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Erro ao ler as tribos do post", ex);
+        }
+    }
+
+    /**
+     * Lê a página da timeline pré-computada e carrega os posts por ID, mantendo a ordem da timeline.
+     * A ordenação do Pageable não se aplica: a timeline é sempre do mais recente para o mais antigo.
+     */
+    private Page<Post> getTimelinePage(Long userId, Pageable pageable) {
+        List<Long> ids = homeTimelineService.page(userId, (int) pageable.getOffset(), pageable.getPageSize());
+        int total = homeTimelineService.size(userId);
+        return new PageImpl<>(findAllInOrder(ids), pageable, total);
+    }
+
+    private List<Post> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Post> postsById = postRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        return ids.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Obtém os posts com uma hashtag, paginados por cursor (createdAt, id), do mais recente para
+     * o mais antigo.
+     *
+     * @param tag    Hashtag, com ou sem "#"
+     * @param cursor Cursor opaco retornado pela página anterior (ou null para a primeira página)
+     * @throws IllegalArgumentException se a tag ou o cursor forem inválidos
+     */
+    public CursorPageDto<ResponsePost> getPostsByTag(String tag, String cursor, int size) {
+        String normalized = tag == null ? "" : PostContentParser.normalizeTag(tag);
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Tag não pode ser vazia");
+        }
+        String key = PostContentParser.HASHTAG_PREFIX + normalized;
+        logger.info("Obtendo posts da tag {} (cursor: {})", key, cursor);
+
+        KeysetCursor position = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        List<Object[]> rows = position == null
+                ? postRepository.findFeedRowsByTag(key, size + 1)
+                : postRepository.findFeedRowsByTagBefore(key, position.at(), position.id(), size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<ResponsePost> page = (hasNext ? rows.subList(0, size) : rows).stream()
+                .map(PostService::toResponse)
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            ResponsePost last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.createdAt(), last.id()).encode();
+        }
+
+        logger.info("Tag {}: {} posts (próxima página: {})", key, page.size(), hasNext);
+        return CursorPageDto.of(page, nextCursor);
+    }
+
+    /**
+     * Obtém um post pelo ID. Posts de partições já arquivadas são lidos do arquivo.
+     */
+    public Optional<ResponsePost> getPost(Long postId) {
+        List<Object[]> rows = postRepository.findFeedRowsByIds(List.of(postId));
+        if (!rows.isEmpty()) {
+            return Optional.of(toResponse(rows.get(0)));
+        }
+
+        Optional<ResponsePost> archived = postArchiveService.find(postId);
+        archived.ifPresent(post -> logger.info("Post {} lido do arquivo de partições antigas", postId));
+        return archived;
     }
 
     public ResponsePost createPost(CreatePostDto createPostDto) {
@@ -114,17 +375,13 @@ public class PostService {
 
         Set<Tribe> tribes = new HashSet<>();
         if (createPostDto.getTribeIds() != null) {
+            Set<Long> memberTribeIds = tribeMembershipCache.memberTribeIds(user.getEmail(), createPostDto.getTribeIds());
             for (Long tribeId : createPostDto.getTribeIds()) {
-                Tribe tribe = tribeService.getTribeById(tribeId);
-                if (tribe == null) {
-                    logger.warn("Tribo com ID {} não encontrada, ignorando na criação do post", tribeId);
-                    continue;
-                }
-                if (!tribe.getMembers().contains(user)) {
-                    logger.warn("Usuário {} não é membro da tribo {}", user.getId(), tribeId);
+                if (tribeId == null || !memberTribeIds.contains(tribeId)) {
+                    logger.warn("Usuário {} não é membro da tribo {}, ignorando na criação do post", user.getId(), tribeId);
                     continue;
                 }
-                tribes.add(tribe);
+                tribes.add(tribeRepository.getReferenceById(tribeId));
             }
         }
         post.setTribes(tribes);
@@ -132,12 +389,20 @@ public class PostService {
         Post savedPost = postRepository.save(post);
         logger.info("Post criado com sucesso: {}", savedPost.getId());
 
+        homeTimelineService.fanOut(user.getId(), savedPost.getId(), savedPost.getCreatedAt());
+        postTagService.index(savedPost);
+        trendingService.record(savedPost);
+
+        return toResponse(savedPost);
+    }
+
+    private ResponsePost toResponse(Post post) {
         return new ResponsePost(
-                savedPost.getId(),
-                savedPost.getAuthor().getNickname(),
-                savedPost.getTribes().stream().map(Tribe::getId).collect(Collectors.toSet()),
-                savedPost.getContent(),
-                savedPost.getCreatedAt()
+                post.getId(),
+                post.getAuthor().getNickname(),
+                post.getTribes().stream().map(Tribe::getId).collect(Collectors.toSet()),
+                post.getContent(),
+                post.getCreatedAt()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.MentionNotificationDto;
+import com.pingsocial.models.Post;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Indexa as hashtags e menções de cada post em post_tags_tb e notifica os usuários mencionados.
+ */
+@Service
+public class PostTagService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostTagService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MentionNotificationService mentionNotificationService;
+
+    public PostTagService(JdbcTemplate jdbcTemplate, MentionNotificationService mentionNotificationService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mentionNotificationService = mentionNotificationService;
+    }
+
+    /**
+     * Extrai as hashtags e menções do post, grava no índice com um único lote de INSERTs e
+     * enfileira as notificações dos usuários mencionados (exceto o próprio autor).
+     */
+    public void index(Post post) {
+        Set<String> hashtags = PostContentParser.hashtags(post.getContent());
+        Set<String> mentions = PostContentParser.mentions(post.getContent());
+        if (hashtags.isEmpty() && mentions.isEmpty()) {
+            return;
+        }
+
+        Timestamp createdAt = Timestamp.valueOf(post.getCreatedAt());
+        List<Object[]> rows = new ArrayList<>(hashtags.size() + mentions.size());
+        hashtags.forEach(tag -> rows.add(new Object[]{PostContentParser.HASHTAG_PREFIX + tag, createdAt, post.getId()}));
+        mentions.forEach(nickname -> rows.add(new Object[]{PostContentParser.MENTION_PREFIX + nickname, createdAt, post.getId()}));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO post_tags_tb (tag, created_at, post_id) VALUES (?, ?, ?) ON CONFLICT DO NOTHING", rows);
+        logger.info("Post {} indexado com {} hashtags e {} menções", post.getId(), hashtags.size(), mentions.size());
+
+        if (!mentions.isEmpty()) {
+            notifyMentions(post, mentions);
+        }
+    }
+
+    private void notifyMentions(Post post, Set<String> nicknames) {
+        List<String> emails = jdbcTemplate.queryForList(
+                "SELECT email FROM users_tb WHERE nickname = ANY(?) AND id <> ?",
+                String.class, nicknames.toArray(new String[0]), post.getAuthor().getId());
+
+        MentionNotificationDto notification = new MentionNotificationDto(
+                post.getId(), post.getAuthor().getNickname(), post.getCreatedAt());
+        emails.forEach(email -> mentionNotificationService.enqueue(email, notification));
+        logger.debug("Post {} menciona {} usuários", post.getId(), emails.size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.pingsocial.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Lista de IDs de mensagens de um termo, em ordem crescente, comprimida com deltas
+ * codificados em varint: IDs próximos ocupam um ou dois bytes em vez de oito.
+ * Não é thread-safe; o acesso é sincronizado pelo índice do usuário.
+ */
+final class PostingList {
+
+    private byte[] data;
+    private int length;
+    private int count;
+    private long last;
+
+    PostingList() {
+        this.data = new byte[8];
+    }
+
+    private PostingList(byte[] data, int count, long last) {
+        this.data = data;
+        this.length = data.length;
+        this.count = count;
+        this.last = last;
+    }
+
+    /**
+     * Adiciona um ID. IDs repetidos são ignorados; IDs fora de ordem (raros, vindos da
+     * recuperação concorrente com mensagens novas) forçam a recodificação da lista.
+     */
+    void add(long id) {
+        if (count > 0 && id <= last) {
+            if (id < last) {
+                insertOutOfOrder(id);
+            }
+            return;
+        }
+        appendDelta(count == 0 ? id : id - last);
+        last = id;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    long[] toArray() {
+        long[] ids = new long[count];
+        long value = 0;
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            value += delta;
+            ids[i] = value;
+        }
+        return ids;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(count);
+        out.writeLong(last);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    static PostingList readFrom(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        long last = in.readLong();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new PostingList(data, count, last);
+    }
+
+    private void insertOutOfOrder(long id) {
+        long[] ids = toArray();
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        length = 0;
+        count = 0;
+        last = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == insertAt) {
+                add(id);
+            }
+            add(ids[i]);
+        }
+    }
+
+    private void appendDelta(long delta) {
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        while ((delta & ~0x7FL) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+    }
+}
@@ -0,0 +1,269 @@
+package com.pingsocial.service;
+
+import com.pingsocial.exception.UserNotFoundException;
+import com.pingsocial.models.User;
+import com.pingsocial.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed ranqueado (filtro RANKED).
+ * <p>
+ * Os candidatos vêm de três fontes recentes: posts de quem o leitor segue, posts das tribos
+ * do leitor e posts de autores próximos. Cada fonte recebe uma parte do orçamento de
+ * candidatos da requisição. Os sinais de tribos em comum e de seguimento são carregados com
+ * uma consulta cada para todos os candidatos, a pontuação fica a cargo do {@link FeedScorer}
+ * e os K melhores são escolhidos com um heap limitado ({@link TopKHeap}).
+ * <p>
+ * Quando o orçamento de latência da requisição se esgota, as etapas restantes de busca são
+ * puladas e o feed é montado com os candidatos e sinais obtidos até ali.
+ */
+@Service
+public class RankedFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RankedFeedService.class);
+
+    private static final String CANDIDATE_COLUMNS = "SELECT p.id, p.user_id, p.created_at, u.latitude, u.longitude " +
+            "FROM posts_tb p JOIN users_tb u ON u.id = p.user_id ";
+
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final TribeMembershipCache tribeMembershipCache;
+    private final FeedScorer feedScorer;
+    private final Timer rankTimer;
+    private final DistributionSummary candidatesSummary;
+    private final Counter budgetExceeded;
+
+    @Value("${pingsocial.feed.ranked.candidate-budget:600}")
+    private int candidateBudget;
+
+    @Value("${pingsocial.feed.ranked.latency-budget-ms:150}")
+    private long latencyBudgetMs;
+
+    @Value("${pingsocial.feed.ranked.max-age-hours:72}")
+    private long maxAgeHours;
+
+    @Value("${pingsocial.feed.ranked.nearby-radius-km:50}")
+    private double nearbyRadiusKm;
+
+    public RankedFeedService(JdbcTemplate jdbcTemplate, UserRepository userRepository,
+                             TribeMembershipCache tribeMembershipCache,
+                             FeedScorer feedScorer, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.tribeMembershipCache = tribeMembershipCache;
+        this.feedScorer = feedScorer;
+        this.rankTimer = Timer.builder("pingsocial.feed.ranked.duration")
+                .description("Tempo para montar o feed ranqueado")
+                .register(meterRegistry);
+        this.candidatesSummary = DistributionSummary.builder("pingsocial.feed.ranked.candidates")
+                .description("Candidatos pontuados por requisição do feed ranqueado")
+                .register(meterRegistry);
+        this.budgetExceeded = Counter.builder("pingsocial.feed.ranked.budget.exceeded")
+                .description("Requisições do feed ranqueado que esgotaram o orçamento de latência")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maior quantidade de posts que o ranking pode retornar: nunca há mais candidatos que o orçamento.
+     */
+    public int maxResults() {
+        return candidateBudget;
+    }
+
+    /**
+     * Obtém os IDs dos {@code k} posts de maior pontuação para o usuário, em ordem decrescente.
+     * {@code k} é limitado a {@link #maxResults()}.
+     */
+    public List<Long> rank(Long userId, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        k = Math.min(k, candidateBudget);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        long now = System.currentTimeMillis();
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> {
+                    logger.error("Usuário não encontrado com ID: {}", userId);
+                    return new UserNotFoundException(userId);
+                });
+        Set<Long> tribeIds = tribeMembershipCache.tribeIdsOf(user.getEmail());
+        Timestamp since = new Timestamp(now - TimeUnit.HOURS.toMillis(maxAgeHours));
+        int perSource = Math.max(1, candidateBudget / 3);
+
+        Map<Long, CandidateRow> candidates = new LinkedHashMap<>();
+        boolean exceeded = false;
+
+        collect(candidates, jdbcTemplate.query(CANDIDATE_COLUMNS +
+                        "JOIN follows_tb f ON f.followed_id = p.user_id " +
+                        "WHERE f.follower_id = ? AND p.created_at >= ? ORDER BY p.created_at DESC LIMIT ?",
+                this::mapRow, userId, since, perSource));
+
+        if (!tribeIds.isEmpty()) {
+            if (System.nanoTime() < deadline) {
+                collect(candidates, jdbcTemplate.query(CANDIDATE_COLUMNS +
+                                "WHERE p.id IN (SELECT pt.post_id FROM post_tribes pt WHERE pt.tribe_id = ANY(?)) " +
+                                "AND p.user_id <> ? AND p.created_at >= ? ORDER BY p.created_at DESC LIMIT ?",
+                        this::mapRow, tribeIds.toArray(new Long[0]), userId, since, perSource));
+            } else {
+                exceeded = true;
+            }
+        }
+
+        if (user.getLatitude() != null && user.getLongitude() != null) {
+            if (System.nanoTime() < deadline) {
+                double latDelta = nearbyRadiusKm / KM_PER_DEGREE;
+                double lonDelta = nearbyRadiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(user.getLatitude()))));
+                collect(candidates, jdbcTemplate.query(CANDIDATE_COLUMNS +
+                                "WHERE u.latitude BETWEEN ? AND ? AND u.longitude BETWEEN ? AND ? " +
+                                "AND p.user_id <> ? AND p.created_at >= ? ORDER BY p.created_at DESC LIMIT ?",
+                        this::mapRow,
+                        user.getLatitude() - latDelta, user.getLatitude() + latDelta,
+                        user.getLongitude() - lonDelta, user.getLongitude() + lonDelta,
+                        userId, since, perSource));
+            } else {
+                exceeded = true;
+            }
+        }
+
+        Map<Long, Integer> sharedTribes = Map.of();
+        Map<Long, Double> followStrength = Map.of();
+        if (!candidates.isEmpty()) {
+            if (!tribeIds.isEmpty() && System.nanoTime() < deadline) {
+                sharedTribes = loadSharedTribes(candidates.keySet(), tribeIds);
+            } else if (!tribeIds.isEmpty()) {
+                exceeded = true;
+            }
+            if (System.nanoTime() < deadline) {
+                followStrength = loadFollowStrength(userId, candidates.values());
+            } else {
+                exceeded = true;
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(k);
+        for (CandidateRow row : candidates.values()) {
+            FeedCandidate candidate = new FeedCandidate(
+                    row.postId(),
+                    row.authorId(),
+                    row.createdAtMillis(),
+                    sharedTribes.getOrDefault(row.postId(), 0),
+                    followStrength.getOrDefault(row.authorId(), 0d),
+                    distanceKm(user, row)
+            );
+            heap.offer(row.postId(), feedScorer.score(candidate, now));
+        }
+
+        List<Long> ranked = new ArrayList<>(heap.size());
+        for (long postId : heap.drainDescending()) {
+            ranked.add(postId);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        rankTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        candidatesSummary.record(candidates.size());
+        if (exceeded) {
+            budgetExceeded.increment();
+            logger.warn("Orçamento de latência do feed ranqueado esgotado para o usuário {} ({} candidatos)",
+                    userId, candidates.size());
+        }
+        logger.info("Feed ranqueado do usuário {}: {} candidatos, {} selecionados em {} ms",
+                userId, candidates.size(), ranked.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return ranked;
+    }
+
+    private void collect(Map<Long, CandidateRow> candidates, List<CandidateRow> rows) {
+        for (CandidateRow row : rows) {
+            if (candidates.size() >= candidateBudget) {
+                return;
+            }
+            candidates.putIfAbsent(row.postId(), row);
+        }
+    }
+
+    private Map<Long, Integer> loadSharedTribes(Set<Long> postIds, Set<Long> tribeIds) {
+        Map<Long, Integer> shared = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT post_id, COUNT(*) FROM post_tribes WHERE post_id = ANY(?) AND tribe_id = ANY(?) GROUP BY post_id",
+                rs -> {
+                    shared.put(rs.getLong(1), rs.getInt(2));
+                },
+                postIds.toArray(new Long[0]), tribeIds.toArray(new Long[0]));
+        return shared;
+    }
+
+    /**
+     * Carrega a força do seguimento de cada autor candidato: 1 se o leitor segue, 2 se é mútuo.
+     */
+    private Map<Long, Double> loadFollowStrength(Long userId, Iterable<CandidateRow> rows) {
+        Set<Long> authorIds = new HashSet<>();
+        rows.forEach(row -> authorIds.add(row.authorId()));
+
+        Map<Long, Double> strength = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT f.followed_id, EXISTS (SELECT 1 FROM follows_tb b " +
+                        "WHERE b.follower_id = f.followed_id AND b.followed_id = f.follower_id) " +
+                        "FROM follows_tb f WHERE f.follower_id = ? AND f.followed_id = ANY(?)",
+                rs -> {
+                    strength.put(rs.getLong(1), rs.getBoolean(2) ? 2d : 1d);
+                },
+                userId, authorIds.toArray(new Long[0]));
+        return strength;
+    }
+
+    private CandidateRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        double latitude = rs.getDouble(4);
+        boolean hasLatitude = !rs.wasNull();
+        double longitude = rs.getDouble(5);
+        boolean hasLocation = hasLatitude && !rs.wasNull();
+        return new CandidateRow(
+                rs.getLong(1),
+                rs.getLong(2),
+                rs.getTimestamp(3).getTime(),
+                hasLocation ? latitude : Double.NaN,
+                hasLocation ? longitude : Double.NaN
+        );
+    }
+
+    /**
+     * Distância de Haversine entre o leitor e o autor, ou NaN se alguma localização for desconhecida.
+     */
+    private static double distanceKm(User user, CandidateRow row) {
+        if (user.getLatitude() == null || user.getLongitude() == null || Double.isNaN(row.latitude())) {
+            return Double.NaN;
+        }
+        double dLat = Math.toRadians(row.latitude() - user.getLatitude());
+        double dLon = Math.toRadians(row.longitude() - user.getLongitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(user.getLatitude())) * Math.cos(Math.toRadians(row.latitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private record CandidateRow(long postId, long authorId, long createdAtMillis, double latitude, double longitude) {
+    }
+}
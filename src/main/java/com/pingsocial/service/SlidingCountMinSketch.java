@@ -0,0 +1,79 @@
+package com.pingsocial.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch com janela deslizante: um anel de sketches, um por intervalo da janela.
+ * <p>
+ * As contagens vão para o intervalo atual com incrementos atômicos (sem locks) e a
+ * estimativa de uma chave soma os intervalos da janela. A memória é fixa em
+ * {@code depth * width * buckets} contadores, independente do volume. Como todo Count-Min
+ * Sketch, a estimativa nunca fica abaixo da contagem real, só acima (colisões).
+ */
+final class SlidingCountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray[] buckets;
+    private volatile int current;
+
+    SlidingCountMinSketch(int depth, int width, int windowBuckets) {
+        this.depth = depth;
+        this.width = width;
+        this.buckets = new AtomicLongArray[windowBuckets];
+        for (int i = 0; i < windowBuckets; i++) {
+            buckets[i] = new AtomicLongArray(depth * width);
+        }
+    }
+
+    void add(String key) {
+        AtomicLongArray bucket = buckets[current];
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9);
+        for (int row = 0; row < depth; row++) {
+            bucket.incrementAndGet(cell(row, h1, h2));
+        }
+    }
+
+    long estimate(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = cell(row, h1, h2);
+            long sum = 0;
+            for (AtomicLongArray bucket : buckets) {
+                sum += bucket.get(cell);
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    /**
+     * Avança a janela: o intervalo mais antigo é zerado e passa a receber as novas contagens.
+     * Chamado por uma única thread (o job agendado).
+     */
+    void rotate() {
+        int next = (current + 1) % buckets.length;
+        AtomicLongArray bucket = buckets[next];
+        for (int i = 0; i < bucket.length(); i++) {
+            bucket.set(i, 0);
+        }
+        current = next;
+    }
+
+    // Linha i usa h1 + i * h2 (Kirsch-Mitzenmacher): depth funções de hash a partir de duas
+    private int cell(int row, int h1, int h2) {
+        return row * width + Math.floorMod(h1 + row * h2, width);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
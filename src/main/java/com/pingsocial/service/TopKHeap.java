@@ -0,0 +1,89 @@
+package com.pingsocial.service;
+
+/**
+ * Seleciona os K posts de maior pontuação com um heap mínimo de tamanho fixo em arrays
+ * primitivos: cada candidato custa O(log K), sem ordenar o conjunto inteiro de candidatos.
+ */
+final class TopKHeap {
+
+    private final long[] postIds;
+    private final double[] scores;
+    private int size;
+
+    TopKHeap(int capacity) {
+        this.postIds = new long[capacity];
+        this.scores = new double[capacity];
+    }
+
+    void offer(long postId, double score) {
+        if (postIds.length == 0) {
+            return;
+        }
+        if (size < postIds.length) {
+            postIds[size] = postId;
+            scores[size] = score;
+            siftUp(size++);
+            return;
+        }
+        if (score <= scores[0]) {
+            return;
+        }
+        postIds[0] = postId;
+        scores[0] = score;
+        siftDown(0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Esvazia o heap e retorna os IDs da maior para a menor pontuação.
+     */
+    long[] drainDescending() {
+        long[] result = new long[size];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = postIds[0];
+            size--;
+            postIds[0] = postIds[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[index] <= scores[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long postId = postIds[a];
+        postIds[a] = postIds[b];
+        postIds[b] = postId;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,157 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.TrendingTopicDto;
+import com.pingsocial.models.Post;
+import com.pingsocial.models.Tribe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashtags e termos em alta, globalmente e por tribo, na janela deslizante configurada
+ * ({@code pingsocial.trending.window-buckets} intervalos de {@code bucket-duration-ms}).
+ * <p>
+ * Cada post criado atualiza um {@link TrendingWindow} global e um por tribo do post. A
+ * memória é fixa: o tamanho dos sketches e o número de candidatos são configurados, e no
+ * máximo {@code pingsocial.trending.max-tribes} tribos são acompanhadas ao mesmo tempo;
+ * tribos sem posts na janela liberam a vaga na rotação. As atualizações usam só
+ * incrementos atômicos e o ConcurrentHashMap dos candidatos, sem lock global, para não
+ * atrasar a criação de posts.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    private final Map<Long, TrendingWindow> tribes = new ConcurrentHashMap<>();
+    private final TrendingWindow global;
+    private final Counter skippedTribes;
+
+    private final int depth;
+    private final int tribeWidth;
+    private final int windowBuckets;
+    private final int capacity;
+    private final int maxTribes;
+    private final int minTermLength;
+    private final int maxTermsPerPost;
+
+    public TrendingService(MeterRegistry meterRegistry,
+                           @Value("${pingsocial.trending.depth:4}") int depth,
+                           @Value("${pingsocial.trending.width:4096}") int width,
+                           @Value("${pingsocial.trending.tribe-width:256}") int tribeWidth,
+                           @Value("${pingsocial.trending.window-buckets:12}") int windowBuckets,
+                           @Value("${pingsocial.trending.candidates:100}") int capacity,
+                           @Value("${pingsocial.trending.max-tribes:256}") int maxTribes,
+                           @Value("${pingsocial.trending.min-term-length:3}") int minTermLength,
+                           @Value("${pingsocial.trending.max-terms-per-post:30}") int maxTermsPerPost) {
+        this.depth = depth;
+        this.tribeWidth = tribeWidth;
+        this.windowBuckets = windowBuckets;
+        this.capacity = capacity;
+        this.maxTribes = maxTribes;
+        this.minTermLength = minTermLength;
+        this.maxTermsPerPost = maxTermsPerPost;
+        this.global = new TrendingWindow(depth, width, windowBuckets, capacity);
+
+        this.skippedTribes = Counter.builder("pingsocial.trending.tribes.skipped")
+                .description("Posts de tribos não acompanhadas por já haver o máximo de tribos na janela")
+                .register(meterRegistry);
+        Gauge.builder("pingsocial.trending.tribes", tribes, Map::size)
+                .description("Tribos com tópicos em alta acompanhados")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Conta as hashtags e os termos de um post recém-criado.
+     */
+    public void record(Post post) {
+        List<String> topics = topicsOf(post.getContent());
+        if (topics.isEmpty()) {
+            return;
+        }
+
+        topics.forEach(global::add);
+        for (Tribe tribe : post.getTribes()) {
+            TrendingWindow window = tribeWindow(tribe.getId());
+            if (window != null) {
+                topics.forEach(window::add);
+            }
+        }
+    }
+
+    /**
+     * Obtém os tópicos em alta, do mais para o menos frequente.
+     *
+     * @param tribeId Tribo (ou null para o ranking global)
+     * @param limit   Quantidade máxima de tópicos
+     * @throws IllegalArgumentException se o limite estiver fora de 1 até a capacidade configurada
+     */
+    public List<TrendingTopicDto> getTrending(Long tribeId, int limit) {
+        if (limit <= 0 || limit > capacity) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + capacity);
+        }
+        if (tribeId == null) {
+            return global.top(limit);
+        }
+        TrendingWindow window = tribes.get(tribeId);
+        return window == null ? List.of() : window.top(limit);
+    }
+
+    /**
+     * Avança a janela de todos os escopos e libera as tribos sem posts na janela.
+     */
+    @Scheduled(fixedRateString = "${pingsocial.trending.bucket-duration-ms:300000}",
+            initialDelayString = "${pingsocial.trending.bucket-duration-ms:300000}")
+    public void rotate() {
+        global.rotateAndPrune();
+        int released = 0;
+        for (Map.Entry<Long, TrendingWindow> entry : tribes.entrySet()) {
+            if (!entry.getValue().rotateAndPrune() && tribes.remove(entry.getKey(), entry.getValue())) {
+                released++;
+            }
+        }
+        logger.debug("Janela de tópicos em alta avançada: {} tribos acompanhadas, {} liberadas", tribes.size(), released);
+    }
+
+    private TrendingWindow tribeWindow(Long tribeId) {
+        TrendingWindow window = tribes.get(tribeId);
+        if (window != null) {
+            return window;
+        }
+        if (tribes.size() >= maxTribes) {
+            skippedTribes.increment();
+            return null;
+        }
+        return tribes.computeIfAbsent(tribeId, id -> new TrendingWindow(depth, tribeWidth, windowBuckets, capacity));
+    }
+
+    // Hashtags como "#tag" e termos do texto livre, sem menções (apelidos não são tópicos)
+    private List<String> topicsOf(String content) {
+        Set<String> hashtags = PostContentParser.hashtags(content);
+        List<String> topics = new ArrayList<>(hashtags.size() + maxTermsPerPost);
+        hashtags.forEach(tag -> topics.add(PostContentParser.HASHTAG_PREFIX + tag));
+
+        int terms = 0;
+        for (String term : ChatTextTokenizer.tokenize(PostContentParser.stripTags(content))) {
+            if (terms == maxTermsPerPost) {
+                break;
+            }
+            if (term.length() >= minTermLength) {
+                topics.add(term);
+                terms++;
+            }
+        }
+        return topics;
+    }
+}
@@ -0,0 +1,78 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.TrendingTopicDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tópicos mais frequentes de um escopo (global ou uma tribo) na janela deslizante.
+ * <p>
+ * As contagens ficam no {@link SlidingCountMinSketch}; ao lado dele há um conjunto limitado
+ * de candidatos a top-K. Um tópico novo só entra no conjunto se houver vaga ou se sua
+ * estimativa superar a menor estimativa da última poda, e o conjunto nunca passa de duas
+ * vezes a capacidade: entre uma poda e outra, tópicos novos além desse limite são
+ * ignorados (continuam contados no sketch e podem entrar na próxima poda).
+ */
+final class TrendingWindow {
+
+    private final SlidingCountMinSketch sketch;
+    private final Map<String, Boolean> candidates = new ConcurrentHashMap<>();
+    private final int capacity;
+    private volatile long admissionThreshold;
+
+    TrendingWindow(int depth, int width, int windowBuckets, int capacity) {
+        this.sketch = new SlidingCountMinSketch(depth, width, windowBuckets);
+        this.capacity = capacity;
+    }
+
+    void add(String topic) {
+        sketch.add(topic);
+        if (candidates.containsKey(topic)) {
+            return;
+        }
+        int size = candidates.size();
+        if (size < capacity || (size < capacity * 2 && sketch.estimate(topic) > admissionThreshold)) {
+            candidates.put(topic, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Avança a janela e mantém só os candidatos com maior estimativa.
+     *
+     * @return false se a janela ficou vazia (nenhum tópico com contagem)
+     */
+    boolean rotateAndPrune() {
+        sketch.rotate();
+        List<TrendingTopicDto> ranked = rank();
+        for (int i = capacity; i < ranked.size(); i++) {
+            candidates.remove(ranked.get(i).topic());
+        }
+        admissionThreshold = ranked.size() < capacity ? 0 : ranked.get(capacity - 1).count();
+        return !candidates.isEmpty();
+    }
+
+    List<TrendingTopicDto> top(int limit) {
+        List<TrendingTopicDto> ranked = rank();
+        return List.copyOf(ranked.subList(0, Math.min(limit, ranked.size())));
+    }
+
+    // Estimativa atual de cada candidato; os que saíram da janela (estimativa 0) são descartados
+    private List<TrendingTopicDto> rank() {
+        List<TrendingTopicDto> ranked = new ArrayList<>(candidates.size());
+        for (String topic : candidates.keySet()) {
+            long count = sketch.estimate(topic);
+            if (count > 0) {
+                ranked.add(new TrendingTopicDto(topic, count));
+            } else {
+                candidates.remove(topic);
+            }
+        }
+        ranked.sort(Comparator.comparingLong(TrendingTopicDto::count).reversed()
+                .thenComparing(TrendingTopicDto::topic));
+        return ranked;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pingsocial.service;
+
+import com.pingsocial.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache dos IDs das tribos de cada usuário, carregado com uma única consulta na tabela
+ * user_tribe, sem carregar as entidades de tribo nem seus membros.
+ */
+@Service
+public class TribeMembershipCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TribeMembershipCache.class);
+
+    private final UserRepository userRepository;
+    private final Map<String, Set<Long>> tribeIdsByEmail;
+
+    public TribeMembershipCache(UserRepository userRepository,
+                                @Value("${pingsocial.tribe.membership.cached-users:10000}") int cachedUsers) {
+        this.userRepository = userRepository;
+        this.tribeIdsByEmail = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<Long>> eldest) {
+                return size() > cachedUsers;
+            }
+        });
+    }
+
+    /**
+     * Obtém os IDs das tribos das quais o usuário é membro.
+     */
+    public Set<Long> tribeIdsOf(String email) {
+        Set<Long> cached = tribeIdsByEmail.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<Long> tribeIds = Set.copyOf(userRepository.findTribeIdsByEmail(email));
+        tribeIdsByEmail.put(email, tribeIds);
+        logger.debug("Tribos de {} carregadas no cache: {}", email, tribeIds);
+        return tribeIds;
+    }
+
+    /**
+     * Filtra, entre as tribos informadas, aquelas das quais o usuário é membro. Responde a partir
+     * do conjunto em cache, sem carregar as tribos nem seus membros.
+     */
+    public Set<Long> memberTribeIds(String email, Collection<Long> tribeIds) {
+        if (email == null || tribeIds == null || tribeIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> memberships = tribeIdsOf(email);
+        Set<Long> result = new HashSet<>();
+        for (Long tribeId : tribeIds) {
+            if (tribeId != null && memberships.contains(tribeId)) {
+                result.add(tribeId);
+            }
+        }
+        return result;
+    }
+
+    public boolean isMember(String email, Long tribeId) {
+        return email != null && tribeId != null && tribeIdsOf(email).contains(tribeId);
+    }
+
+    /**
+     * Descarta as tribos do usuário em cache. Dentro de uma transação, descarta de novo após
+     * o commit para que uma leitura concorrente não recoloque o valor antigo.
+     */
+    public void evict(String email) {
+        tribeIdsByEmail.remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tribeIdsByEmail.remove(email);
+                }
+            });
+        }
+    }
+}
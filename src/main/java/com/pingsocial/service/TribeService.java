@@ -24,10 +24,13 @@ public class TribeService {
 
     private final TribeRepository tribeRepository;
     private final UserRepository userRepository;
+    private final TribeMembershipCache tribeMembershipCache;
 
-    public TribeService(TribeRepository tribeRepository, UserRepository userRepository) {
+    public TribeService(TribeRepository tribeRepository, UserRepository userRepository,
+                        TribeMembershipCache tribeMembershipCache) {
         this.tribeRepository = tribeRepository;
         this.userRepository = userRepository;
+        this.tribeMembershipCache = tribeMembershipCache;
     }
 
     /**
@@ -77,6 +80,7 @@ public class TribeService {
         // Salva as alterações
         tribeRepository.save(tribe);
         userRepository.save(user);
+        tribeMembershipCache.evict(user.getEmail());
 
         logger.info("Usuário {} adicionado com sucesso à tribo {}", userId, tribeId);
     }
@@ -124,6 +128,7 @@ public class TribeService {
 
         tribeRepository.save(tribe);
         userRepository.save(user);
+        tribeMembershipCache.evict(user.getEmail());
 
         logger.info("Usuário {} removido com sucesso da tribo {}", userId, tribeId);
     }
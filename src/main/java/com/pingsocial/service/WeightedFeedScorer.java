@@ -0,0 +1,57 @@
+package com.pingsocial.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pontuação padrão do feed ranqueado: soma ponderada de recência, tribos em comum,
+ * seguimento e proximidade, cada sinal normalizado entre 0 e 1.
+ * <ul>
+ *     <li>recência: decaimento exponencial com meia-vida configurável;</li>
+ *     <li>tribos: 1 - 0,5^n, de modo que a primeira tribo em comum pesa mais que as seguintes;</li>
+ *     <li>seguimento: metade para quem o leitor segue, inteiro para seguimento mútuo;</li>
+ *     <li>proximidade: escala / (escala + distância), zero quando a localização é desconhecida.</li>
+ * </ul>
+ */
+@Component
+public class WeightedFeedScorer implements FeedScorer {
+
+    private static final double LN_2 = Math.log(2);
+
+    private final double recencyWeight;
+    private final double tribeWeight;
+    private final double followWeight;
+    private final double distanceWeight;
+    private final double decayPerMilli;
+    private final double distanceScaleKm;
+
+    public WeightedFeedScorer(@Value("${pingsocial.feed.ranked.weight.recency:1.0}") double recencyWeight,
+                              @Value("${pingsocial.feed.ranked.weight.tribe:0.6}") double tribeWeight,
+                              @Value("${pingsocial.feed.ranked.weight.follow:0.8}") double followWeight,
+                              @Value("${pingsocial.feed.ranked.weight.distance:0.4}") double distanceWeight,
+                              @Value("${pingsocial.feed.ranked.recency-half-life-hours:24}") double halfLifeHours,
+                              @Value("${pingsocial.feed.ranked.distance-scale-km:25}") double distanceScaleKm) {
+        this.recencyWeight = recencyWeight;
+        this.tribeWeight = tribeWeight;
+        this.followWeight = followWeight;
+        this.distanceWeight = distanceWeight;
+        this.decayPerMilli = LN_2 / (halfLifeHours * 3_600_000d);
+        this.distanceScaleKm = distanceScaleKm;
+    }
+
+    @Override
+    public double score(FeedCandidate candidate, long nowMillis) {
+        long ageMillis = Math.max(0, nowMillis - candidate.createdAtMillis());
+        double recency = Math.exp(-decayPerMilli * ageMillis);
+        double tribes = 1 - Math.pow(0.5, candidate.sharedTribes());
+        double follow = candidate.followStrength() / 2;
+        double proximity = Double.isNaN(candidate.distanceKm())
+                ? 0
+                : distanceScaleKm / (distanceScaleKm + candidate.distanceKm());
+
+        return recencyWeight * recency
+                + tribeWeight * tribes
+                + followWeight * follow
+                + distanceWeight * proximity;
+    }
+}
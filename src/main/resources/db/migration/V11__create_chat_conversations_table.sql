@@ -0,0 +1,32 @@
+-- V11__create_chat_conversations_table.sql
+-- Estado desnormalizado por conversa (contador de não lidas) para evitar COUNT(*) em chat_messages_tb
+
+-- A tabela de mensagens é mapeada pela entidade ChatMessage; garante sua existência antes dos índices
+CREATE TABLE IF NOT EXISTS chat_messages_tb (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text VARCHAR(255),
+    sender VARCHAR(255),
+    recipient VARCHAR(255),
+    timestamp VARCHAR(255),
+    is_read BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+-- Índice para marcar mensagens como lidas em lote (destinatário, remetente, sequência)
+CREATE INDEX IF NOT EXISTS idx_chat_messages_recipient_sender_id ON chat_messages_tb(recipient, sender, id);
+
+CREATE TABLE chat_conversations_tb (
+    id BIGSERIAL PRIMARY KEY,
+    owner_email VARCHAR(255) NOT NULL,
+    peer_email VARCHAR(255) NOT NULL,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    last_read_message_id BIGINT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT unique_chat_conversation UNIQUE (owner_email, peer_email)
+);
+
+-- Popula os contadores a partir das mensagens não lidas já existentes
+INSERT INTO chat_conversations_tb (owner_email, peer_email, unread_count)
+SELECT recipient, sender, COUNT(*)
+FROM chat_messages_tb
+WHERE is_read = FALSE AND recipient IS NOT NULL AND sender IS NOT NULL
+GROUP BY recipient, sender;
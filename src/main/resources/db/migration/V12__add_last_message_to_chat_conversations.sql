@@ -0,0 +1,48 @@
+-- V12__add_last_message_to_chat_conversations.sql
+-- Resumo por conversa (última mensagem) para a listagem da caixa de entrada
+
+ALTER TABLE chat_conversations_tb
+    ADD COLUMN last_message_id BIGINT,
+    ADD COLUMN last_message_text VARCHAR(255),
+    ADD COLUMN last_sender_email VARCHAR(255),
+    ADD COLUMN last_message_at TIMESTAMP;
+
+-- Preenche o resumo das conversas existentes (dos dois lados) com a mensagem mais recente.
+-- A data vem da coluna timestamp da mensagem. Quando ela só tem a hora (HH:MM:SS), a data
+-- é a do dia mais recente em que esse horário já passou; sem valor legível, a conversa fica
+-- no fim da caixa de entrada (epoch) em vez de receber uma data inventada.
+WITH pairs AS (
+    SELECT sender AS owner_email, recipient AS peer_email, id
+    FROM chat_messages_tb
+    WHERE sender IS NOT NULL AND recipient IS NOT NULL
+    UNION ALL
+    SELECT recipient, sender, id
+    FROM chat_messages_tb
+    WHERE sender IS NOT NULL AND recipient IS NOT NULL
+), latest AS (
+    SELECT owner_email, peer_email, MAX(id) AS last_id
+    FROM pairs
+    GROUP BY owner_email, peer_email
+)
+INSERT INTO chat_conversations_tb (owner_email, peer_email, unread_count, last_message_id, last_message_text, last_sender_email, last_message_at)
+SELECT l.owner_email, l.peer_email, 0, m.id, m.text, m.sender,
+       CASE
+           WHEN m.timestamp ~ '^\d{4}-\d{2}-\d{2}[ T]\d{2}:\d{2}:\d{2}' THEN CAST(m.timestamp AS TIMESTAMP)
+           WHEN m.timestamp ~ '^([01]\d|2[0-3]):[0-5]\d:[0-5]\d$' THEN
+               CASE
+                   WHEN CURRENT_DATE + CAST(m.timestamp AS TIME) <= LOCALTIMESTAMP THEN CURRENT_DATE + CAST(m.timestamp AS TIME)
+                   ELSE CURRENT_DATE - 1 + CAST(m.timestamp AS TIME)
+               END
+           ELSE TIMESTAMP 'epoch'
+       END
+FROM latest l
+JOIN chat_messages_tb m ON m.id = l.last_id
+ON CONFLICT (owner_email, peer_email) DO UPDATE
+SET last_message_id = EXCLUDED.last_message_id,
+    last_message_text = EXCLUDED.last_message_text,
+    last_sender_email = EXCLUDED.last_sender_email,
+    last_message_at = EXCLUDED.last_message_at;
+
+-- Caixa de entrada: conversas do usuário em ordem de recência (keyset)
+CREATE INDEX idx_chat_conversations_owner_recency
+    ON chat_conversations_tb(owner_email, last_message_at DESC, id DESC);
@@ -0,0 +1,15 @@
+-- V13__create_chat_clears_table.sql
+-- Marcadores (tombstones) de conversas limpas; as mensagens são removidas depois, em lotes
+
+CREATE TABLE chat_clears_tb (
+    id BIGSERIAL PRIMARY KEY,
+    user_a VARCHAR(255) NOT NULL,
+    user_b VARCHAR(255) NOT NULL,
+    cleared_up_to_id BIGINT NOT NULL,
+    requested_by VARCHAR(255),
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    purged_at TIMESTAMP
+);
+
+CREATE INDEX idx_chat_clears_users ON chat_clears_tb(user_a, user_b, cleared_up_to_id);
+CREATE INDEX idx_chat_clears_pending ON chat_clears_tb(id) WHERE purged_at IS NULL;
@@ -0,0 +1,6 @@
+-- Mensagens de chat de tribo: tribe_id preenchido e recipient nulo.
+ALTER TABLE chat_messages_tb ADD COLUMN IF NOT EXISTS tribe_id BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_chat_messages_tribe_id
+    ON chat_messages_tb (tribe_id, id)
+    WHERE tribe_id IS NOT NULL;
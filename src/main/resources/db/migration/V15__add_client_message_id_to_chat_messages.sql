@@ -0,0 +1,6 @@
+-- ID gerado pelo cliente para deduplicar reenvios de mensagens de chat.
+ALTER TABLE chat_messages_tb ADD COLUMN IF NOT EXISTS client_message_id VARCHAR(64);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_chat_messages_sender_client_message_id
+    ON chat_messages_tb (sender, client_message_id)
+    WHERE client_message_id IS NOT NULL;
@@ -0,0 +1,11 @@
+-- V16__create_chat_pending_deliveries_table.sql
+-- Entregas pendentes para destinatários offline que excederam a fila em memória
+
+CREATE TABLE chat_pending_deliveries_tb (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    message_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_chat_pending_deliveries_recipient ON chat_pending_deliveries_tb(recipient, id);
@@ -0,0 +1,15 @@
+-- V17__create_chat_changes_table.sql
+-- Log de alterações do chat por usuário, lido pela sincronização incremental
+
+CREATE TABLE chat_changes_tb (
+    id BIGSERIAL PRIMARY KEY,
+    user_email VARCHAR(255) NOT NULL,
+    change_type VARCHAR(20) NOT NULL,
+    peer_email VARCHAR(255),
+    message_id BIGINT,
+    up_to_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_chat_changes_user_seq ON chat_changes_tb(user_email, id);
+CREATE INDEX idx_chat_changes_created_at ON chat_changes_tb(created_at);
@@ -0,0 +1,19 @@
+-- V18__create_email_outbox_table.sql
+-- Fila persistente de e-mails; o envio SMTP é feito em segundo plano
+
+CREATE TABLE email_outbox_tb (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX idx_email_outbox_due ON email_outbox_tb(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_email_outbox_sending ON email_outbox_tb(locked_at) WHERE status = 'SENDING';
@@ -0,0 +1,110 @@
+-- V19__create_partitioned_chat_messages.sql
+-- Mensagens de chat particionadas por hash da chave da conversa (16 partições).
+-- As escritas em chat_messages_tb passam a ser espelhadas por trigger na tabela particionada;
+-- as linhas existentes são copiadas em lotes pelo ChatMessagePartitionMigrator, que ao final
+-- troca as tabelas (a atual passa a ser chat_messages_legacy_tb).
+
+-- Chave da conversa entre dois usuários, independente da ordem. plpgsql para que a expressão
+-- não seja expandida pelo planner e continue igual à chave de particionamento nas consultas.
+CREATE OR REPLACE FUNCTION chat_conversation_key(user_a TEXT, user_b TEXT)
+RETURNS TEXT
+LANGUAGE plpgsql IMMUTABLE PARALLEL SAFE
+AS $$
+BEGIN
+    IF user_a COLLATE "C" <= user_b COLLATE "C" THEN
+        RETURN user_a || ':' || user_b;
+    END IF;
+    RETURN user_b || ':' || user_a;
+END;
+$$;
+
+-- Chave de particionamento de uma mensagem: a tribo, no chat de tribo, ou o par de usuários.
+CREATE OR REPLACE FUNCTION chat_message_conversation_key(sender TEXT, recipient TEXT, tribe_id BIGINT)
+RETURNS TEXT
+LANGUAGE plpgsql IMMUTABLE PARALLEL SAFE
+AS $$
+BEGIN
+    IF tribe_id IS NOT NULL THEN
+        RETURN 'tribe:' || tribe_id;
+    END IF;
+    RETURN chat_conversation_key(sender, recipient);
+END;
+$$;
+
+CREATE SEQUENCE chat_messages_part_id_seq;
+
+CREATE TABLE chat_messages_part_tb (
+    id BIGINT NOT NULL DEFAULT nextval('chat_messages_part_id_seq'),
+    text VARCHAR(255),
+    sender VARCHAR(255),
+    recipient VARCHAR(255),
+    timestamp VARCHAR(255),
+    is_read BOOLEAN NOT NULL DEFAULT FALSE,
+    tribe_id BIGINT,
+    client_message_id VARCHAR(64)
+) PARTITION BY HASH ((chat_message_conversation_key(sender, recipient, tribe_id)));
+
+ALTER SEQUENCE chat_messages_part_id_seq OWNED BY chat_messages_part_tb.id;
+
+-- A chave de partição é uma expressão, então a chave primária e a unicidade do ID do cliente
+-- são declaradas em cada partição. Reenvios de uma mesma conversa caem sempre na mesma partição.
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE chat_messages_part_%s PARTITION OF chat_messages_part_tb '
+                       'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+        EXECUTE format('ALTER TABLE chat_messages_part_%s ADD CONSTRAINT chat_messages_part_%s_pkey PRIMARY KEY (id)', i, i);
+        EXECUTE format('CREATE UNIQUE INDEX uk_chat_messages_part_%s_client_message_id '
+                       'ON chat_messages_part_%s (sender, client_message_id) '
+                       'WHERE client_message_id IS NOT NULL', i, i);
+    END LOOP;
+END;
+$$;
+
+CREATE INDEX idx_chat_messages_part_conversation_id
+    ON chat_messages_part_tb ((chat_message_conversation_key(sender, recipient, tribe_id)), id);
+CREATE INDEX idx_chat_messages_part_conversation_timestamp
+    ON chat_messages_part_tb ((chat_message_conversation_key(sender, recipient, tribe_id)), timestamp, id);
+CREATE INDEX idx_chat_messages_part_recipient_sender_id
+    ON chat_messages_part_tb (recipient, sender, id);
+
+-- Espelha inserções, atualizações e exclusões enquanto a cópia está em andamento.
+CREATE OR REPLACE FUNCTION chat_messages_mirror()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM chat_messages_part_tb
+        WHERE chat_message_conversation_key(sender, recipient, tribe_id)
+                  = chat_message_conversation_key(OLD.sender, OLD.recipient, OLD.tribe_id)
+          AND id = OLD.id;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO chat_messages_part_tb (id, text, sender, recipient, timestamp, is_read, tribe_id, client_message_id)
+        VALUES (NEW.id, NEW.text, NEW.sender, NEW.recipient, NEW.timestamp, NEW.is_read, NEW.tribe_id, NEW.client_message_id)
+        ON CONFLICT DO NOTHING;
+        RETURN NEW;
+    END IF;
+
+    RETURN OLD;
+END;
+$$;
+
+CREATE TRIGGER chat_messages_mirror_trg
+    AFTER INSERT OR UPDATE OR DELETE ON chat_messages_tb
+    FOR EACH ROW EXECUTE FUNCTION chat_messages_mirror();
+
+-- Estado da cópia: linhas até target_max_id são copiadas pelo migrador; as posteriores já
+-- chegam pela trigger (criada acima, nesta mesma transação).
+CREATE TABLE chat_partition_migration_tb (
+    id INT PRIMARY KEY,
+    last_copied_id BIGINT NOT NULL DEFAULT 0,
+    target_max_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    swapped_at TIMESTAMP
+);
+
+INSERT INTO chat_partition_migration_tb (id, target_max_id)
+SELECT 1, COALESCE(MAX(id), 0) FROM chat_messages_tb;
@@ -0,0 +1,24 @@
+-- V20__create_timeline_entries_table.sql
+-- Timeline pré-computada de cada usuário (posts de quem ele segue), preenchida na criação do post
+
+CREATE TABLE timeline_entries_tb (
+    user_id BIGINT NOT NULL,
+    post_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, post_id),
+    CONSTRAINT fk_timeline_user FOREIGN KEY (user_id) REFERENCES users_tb(id) ON DELETE CASCADE,
+    CONSTRAINT fk_timeline_post FOREIGN KEY (post_id) REFERENCES posts_tb(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_timeline_entries_post_id ON timeline_entries_tb(post_id);
+
+-- Carga inicial com os 800 posts mais recentes dos seguidos de cada usuário
+INSERT INTO timeline_entries_tb (user_id, post_id)
+SELECT user_id, post_id
+FROM (
+    SELECT f.follower_id AS user_id, p.id AS post_id,
+           ROW_NUMBER() OVER (PARTITION BY f.follower_id ORDER BY p.id DESC) AS position
+    FROM follows_tb f
+    JOIN posts_tb p ON p.user_id = f.followed_id
+) ranked
+WHERE position <= 800
+ON CONFLICT DO NOTHING;
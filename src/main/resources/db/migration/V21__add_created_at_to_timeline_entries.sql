@@ -0,0 +1,12 @@
+-- V21__add_created_at_to_timeline_entries.sql
+-- Data de criação do post na timeline, usada para intercalar as timelines com os posts
+-- dos autores com muitos seguidores (que não são distribuídos na escrita)
+
+ALTER TABLE timeline_entries_tb ADD COLUMN created_at TIMESTAMP;
+
+UPDATE timeline_entries_tb t
+SET created_at = p.created_at
+FROM posts_tb p
+WHERE p.id = t.post_id;
+
+ALTER TABLE timeline_entries_tb ALTER COLUMN created_at SET NOT NULL;
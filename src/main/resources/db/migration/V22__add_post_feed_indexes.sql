@@ -0,0 +1,20 @@
+-- V22__add_post_feed_indexes.sql
+-- Índices compostos para a paginação por cursor (created_at, id) do feed de posts
+
+CREATE INDEX IF NOT EXISTS idx_posts_created_at_id ON posts_tb(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_posts_user_created_at_id ON posts_tb(user_id, created_at DESC, id DESC);
+
+-- Coberto pelo índice (user_id, created_at, id)
+DROP INDEX IF EXISTS idx_posts_user_id;
+
+-- post_tribes é a tabela de associação mapeada pela entidade Post (criada pelo Hibernate
+-- em bancos existentes)
+CREATE TABLE IF NOT EXISTS post_tribes (
+    post_id BIGINT NOT NULL,
+    tribe_id BIGINT NOT NULL,
+    PRIMARY KEY (post_id, tribe_id),
+    CONSTRAINT fk_post_tribes_post FOREIGN KEY (post_id) REFERENCES posts_tb(id) ON DELETE CASCADE,
+    CONSTRAINT fk_post_tribes_tribe FOREIGN KEY (tribe_id) REFERENCES tribes_tb(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_post_tribes_tribe_post ON post_tribes(tribe_id, post_id);
@@ -0,0 +1,8 @@
+-- V23__add_follows_follower_followed_index.sql
+-- Índice composto para a junção posts_tb x follows_tb do feed de amigos: a partir do seguidor,
+-- obtém os seguidos direto do índice; os posts de cada seguido usam (user_id, created_at, id)
+
+CREATE INDEX IF NOT EXISTS idx_follows_follower_followed ON follows_tb(follower_id, followed_id);
+
+-- Coberto pelo índice (follower_id, followed_id)
+DROP INDEX IF EXISTS idx_follows_follower_id;
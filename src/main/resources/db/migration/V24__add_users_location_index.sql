@@ -0,0 +1,5 @@
+-- V24__add_users_location_index.sql
+-- Índice para a busca por caixa de coordenadas dos autores próximos no feed ranqueado
+
+CREATE INDEX IF NOT EXISTS idx_users_latitude_longitude ON users_tb(latitude, longitude)
+    WHERE latitude IS NOT NULL AND longitude IS NOT NULL;
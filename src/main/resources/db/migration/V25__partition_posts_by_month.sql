@@ -0,0 +1,85 @@
+-- V25__partition_posts_by_month.sql
+-- Particiona posts_tb por mês de created_at. As partições futuras são criadas pelo
+-- PostPartitionService e as antigas são arquivadas em disco pelo PostArchiveService.
+
+-- Em tabela particionada a chave primária inclui created_at, então posts_tb(id) deixa de ser
+-- referenciável por chave estrangeira; a remoção das linhas dependentes passa para a aplicação.
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT conrelid::regclass AS table_name, conname
+              FROM pg_constraint
+              WHERE contype = 'f' AND confrelid = 'posts_tb'::regclass LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END;
+$$;
+
+ALTER TABLE posts_tb RENAME TO posts_legacy_tb;
+
+-- O id da tabela antiga é uma coluna identity: a sequência dela pertence a posts_legacy_tb e é
+-- removida junto com a tabela, então a nova tabela usa uma sequência própria, como em V19.
+CREATE SEQUENCE posts_part_id_seq;
+
+CREATE TABLE posts_tb (
+    id BIGINT NOT NULL DEFAULT nextval('posts_part_id_seq'),
+    user_id BIGINT NOT NULL,
+    content TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_posts_user FOREIGN KEY (user_id) REFERENCES users_tb(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE posts_part_id_seq OWNED BY posts_tb.id;
+
+-- Uma partição por mês, do post mais antigo até três meses à frente (ou até o post mais
+-- recente, se for posterior). Não há partição padrão: o arquivamento desanexa as partições
+-- com DETACH PARTITION ... CONCURRENTLY, que não é permitido quando ela existe.
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(created_at)), date_trunc('month', CURRENT_DATE))::DATE,
+           GREATEST(date_trunc('month', MAX(created_at)), date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::DATE
+    INTO month_start, last_month
+    FROM posts_legacy_tb;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE posts_tb_%s PARTITION OF posts_tb FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month_start, '"y"YYYY"m"MM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+-- A cópia bloqueia a escrita de posts durante a migração
+INSERT INTO posts_tb (id, user_id, content, created_at)
+SELECT id, user_id, content, COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM posts_legacy_tb;
+
+SELECT setval('posts_part_id_seq', COALESCE((SELECT MAX(id) FROM posts_tb), 0) + 1, false);
+
+DROP TABLE posts_legacy_tb;
+
+CREATE INDEX idx_posts_created_at_id ON posts_tb(created_at DESC, id DESC);
+CREATE INDEX idx_posts_user_created_at_id ON posts_tb(user_id, created_at DESC, id DESC);
+-- Busca por ID sem a data (permalink e carga da timeline): uma sondagem por partição
+CREATE INDEX idx_posts_id ON posts_tb(id);
+
+-- Partições arquivadas: o intervalo de IDs permite localizar o arquivo de um post antigo
+CREATE TABLE post_archives_tb (
+    partition_name VARCHAR(63) PRIMARY KEY,
+    range_start TIMESTAMP NOT NULL,
+    range_end TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    min_id BIGINT,
+    max_id BIGINT,
+    row_count BIGINT,
+    file_path VARCHAR(1024),
+    detached_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    archived_at TIMESTAMP
+);
+
+CREATE INDEX idx_post_archives_ids ON post_archives_tb(min_id, max_id) WHERE status = 'ARCHIVED';
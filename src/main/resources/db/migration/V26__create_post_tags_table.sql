@@ -0,0 +1,13 @@
+-- V26__create_post_tags_table.sql
+-- Índice invertido de hashtags ("#tag") e menções ("@apelido") dos posts. A chave
+-- (tag, created_at, post_id) atende a paginação por cursor com uma varredura de intervalo.
+
+CREATE TABLE post_tags_tb (
+    tag VARCHAR(101) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    post_id BIGINT NOT NULL,
+    PRIMARY KEY (tag, created_at, post_id)
+);
+
+-- Remoção das linhas de um post (arquivamento de partições)
+CREATE INDEX idx_post_tags_post_id ON post_tags_tb(post_id);
@@ -0,0 +1,28 @@
+-- V27__add_commit_sequence_to_chat_changes.sql
+-- Sequência de sincronização atribuída depois do commit, em ordem de commit, e marca por
+-- usuário até onde o log foi podado
+
+-- O ID da entrada é atribuído no INSERT: uma transação longa pode fazer commit de um ID
+-- menor que outro já entregue. A coluna seq é preenchida por um único processo por vez
+-- (ChatSyncService.publish), só para entradas já confirmadas.
+CREATE SEQUENCE chat_changes_seq;
+
+ALTER TABLE chat_changes_tb ADD COLUMN seq BIGINT;
+
+-- As entradas existentes já estão confirmadas; seq = id mantém válidos os cursores emitidos
+UPDATE chat_changes_tb SET seq = id;
+
+SELECT setval('chat_changes_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM chat_changes_tb), 1));
+
+DROP INDEX IF EXISTS idx_chat_changes_user_seq;
+
+CREATE INDEX idx_chat_changes_user_seq ON chat_changes_tb(user_email, seq);
+
+-- Entradas ainda sem sequência, lidas pelo publicador
+CREATE INDEX idx_chat_changes_unpublished ON chat_changes_tb(id) WHERE seq IS NULL;
+
+-- Maior sequência já removida pela retenção, por usuário: cursores anteriores expiraram
+CREATE TABLE chat_sync_watermarks_tb (
+    user_email VARCHAR(255) PRIMARY KEY,
+    pruned_up_to BIGINT NOT NULL
+);
@@ -0,0 +1,20 @@
+-- V28__add_message_count_to_chat_conversations.sql
+-- Quantidade de mensagens visíveis por conversa, mantida a cada envio e zerada na limpeza,
+-- para que o cache de histórico saiba a posição das últimas mensagens sem COUNT(*)
+
+ALTER TABLE chat_conversations_tb ADD COLUMN message_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE chat_conversations_tb c
+SET message_count = (
+    SELECT COUNT(*)
+    FROM chat_messages_tb m
+    WHERE chat_message_conversation_key(m.sender, m.recipient, m.tribe_id) = chat_conversation_key(c.owner_email, c.peer_email)
+      AND ((m.sender = c.owner_email AND m.recipient = c.peer_email)
+        OR (m.sender = c.peer_email AND m.recipient = c.owner_email))
+      AND m.id > COALESCE((
+          SELECT MAX(cl.cleared_up_to_id)
+          FROM chat_clears_tb cl
+          WHERE (cl.user_a = c.owner_email AND cl.user_b = c.peer_email)
+             OR (cl.user_a = c.peer_email AND cl.user_b = c.owner_email)
+      ), 0)
+);
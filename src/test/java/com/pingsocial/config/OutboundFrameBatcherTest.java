@@ -0,0 +1,108 @@
+package com.pingsocial.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pingsocial.controller.ChatController;
+import com.pingsocial.models.ChatMessage;
+import com.pingsocial.repository.ChatMessageRepository;
+import com.pingsocial.service.ChatConversationService;
+import com.pingsocial.service.ChatDeliveryService;
+import com.pingsocial.service.ChatSearchService;
+import com.pingsocial.service.ChatSendDeduplicator;
+import com.pingsocial.service.ChatSyncService;
+import com.pingsocial.service.ConversationTailCache;
+import com.pingsocial.service.EmailService;
+import com.pingsocial.service.TribeMembershipCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OutboundFrameBatcherTest {
+
+    private static final String SESSION_ID = "sessao-1";
+    private static final Principal USER = () -> "ana@pingsocial.test";
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final OutboundFrameBatcher batcher = new OutboundFrameBatcher(new ObjectMapper(), mock(TaskScheduler.class));
+    private final ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+    private final ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+    private final StaticApplicationContext context = new StaticApplicationContext();
+    private SimpAnnotationMethodMessageHandler handler;
+
+    @AfterEach
+    void tearDown() {
+        handler.stop();
+        context.close();
+    }
+
+    @Test
+    void sendFromSessionWithBatchingReachesChatController() {
+        startInboundChannel();
+
+        inbound.send(subscribe(OutboundFrameBatcher.BATCH_SUBSCRIPTION, "lote"));
+        boolean accepted = inbound.send(send("/app/chat", "{\"text\":\"oi\",\"recipient\":\"bruno@pingsocial.test\"}"));
+
+        assertTrue(accepted);
+        ArgumentCaptor<ChatMessage> saved = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(chatMessageRepository).save(saved.capture());
+        assertEquals("oi", saved.getValue().getText());
+        assertEquals("ana@pingsocial.test", saved.getValue().getSender());
+    }
+
+    private void startInboundChannel() {
+        ChatController controller = new ChatController(mock(ChatDeliveryService.class), chatMessageRepository,
+                mock(EmailService.class), mock(ChatConversationService.class), mock(ChatSearchService.class),
+                mock(TribeMembershipCache.class), mock(ChatSendDeduplicator.class), mock(ConversationTailCache.class),
+                mock(ChatSyncService.class));
+        context.getBeanFactory().registerSingleton("chatController", controller);
+        context.refresh();
+
+        inbound.addInterceptor(batcher.subscriptionTracker());
+        outbound.addInterceptor(batcher);
+
+        handler = new SimpAnnotationMethodMessageHandler(inbound, outbound, new SimpMessagingTemplate(outbound));
+        handler.setDestinationPrefixes(List.of("/app"));
+        handler.setMessageConverter(new MappingJackson2MessageConverter());
+        handler.setApplicationContext(context);
+        handler.afterPropertiesSet();
+        handler.start();
+    }
+
+    private static org.springframework.messaging.Message<byte[]> subscribe(String destination, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setUser(USER);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static org.springframework.messaging.Message<byte[]> send(String destination, String json) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setUser(USER);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
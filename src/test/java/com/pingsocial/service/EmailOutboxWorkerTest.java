@@ -0,0 +1,79 @@
+package com.pingsocial.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.pingsocial.models.EmailOutbox;
+import com.pingsocial.models.EmailOutboxStatus;
+import com.pingsocial.repository.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class EmailOutboxWorkerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+
+    @Test
+    void deliversBatchOverSmtpAndMarksEmailsAsSent() throws Exception {
+        EmailOutboxWorker worker = worker(greenMail.getSmtp().getPort());
+        List<EmailOutbox> batch = List.of(
+                email(1L, "ana@pingsocial.test", "Primeira"),
+                email(2L, "bruno@pingsocial.test", "Segunda"),
+                email(3L, "carla@pingsocial.test", "Terceira")
+        );
+
+        worker.deliver(batch);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Primeira", received[0].getSubject());
+        for (EmailOutbox email : batch) {
+            assertEquals(EmailOutboxStatus.SENT, email.getStatus());
+            assertNotNull(email.getSentAt());
+        }
+        verify(repository).saveAll(batch);
+    }
+
+    @Test
+    void schedulesRetryWithBackoffWhenSmtpIsUnavailable() {
+        EmailOutboxWorker worker = worker(greenMail.getSmtp().getPort() + 1);
+        EmailOutbox email = email(1L, "ana@pingsocial.test", "Falha");
+        LocalDateTime before = LocalDateTime.now();
+
+        worker.deliver(List.of(email));
+
+        assertEquals(EmailOutboxStatus.PENDING, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertNotNull(email.getLastError());
+        assertTrue(email.getNextAttemptAt().isAfter(before.plusSeconds(4)));
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    private EmailOutboxWorker worker(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return new EmailOutboxWorker(repository, mailSender, mock(PlatformTransactionManager.class),
+                "no-reply@pingsocial.test", 1, 50, 8, 5000, 3600000, 120);
+    }
+
+    private static EmailOutbox email(Long id, String to, String subject) {
+        EmailOutbox email = new EmailOutbox(to, subject, "<p>" + subject + "</p>", LocalDateTime.now());
+        email.setId(id);
+        return email;
+    }
+}
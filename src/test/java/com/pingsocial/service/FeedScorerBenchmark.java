@@ -0,0 +1,87 @@
+package com.pingsocial.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão da pontuação do feed ranqueado: pontuar um lote de candidatos e selecionar os K
+ * melhores com o {@link TopKHeap}, como em uma requisição RANKED.
+ * <p>
+ * Não roda com os testes; execute o main pela IDE ou com
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.pingsocial.service.FeedScorerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedScorerBenchmark {
+
+    @Param({"600", "5000"})
+    private int candidates;
+
+    @Param({"20", "100"})
+    private int k;
+
+    private FeedScorer scorer;
+    private FeedCandidate[] batch;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        scorer = new WeightedFeedScorer(1.0, 0.6, 0.8, 0.4, 24, 25);
+        now = System.currentTimeMillis();
+
+        Random random = new Random(42);
+        batch = new FeedCandidate[candidates];
+        for (int i = 0; i < candidates; i++) {
+            batch[i] = new FeedCandidate(
+                    i,
+                    random.nextInt(1000),
+                    now - random.nextInt(72 * 3_600_000),
+                    random.nextInt(4),
+                    random.nextInt(3),
+                    random.nextInt(10) == 0 ? Double.NaN : random.nextDouble() * 100
+            );
+        }
+    }
+
+    @Benchmark
+    public void score(Blackhole blackhole) {
+        for (FeedCandidate candidate : batch) {
+            blackhole.consume(scorer.score(candidate, now));
+        }
+    }
+
+    @Benchmark
+    public long[] scoreAndSelectTopK() {
+        TopKHeap heap = new TopKHeap(k);
+        for (FeedCandidate candidate : batch) {
+            heap.offer(candidate.postId(), scorer.score(candidate, now));
+        }
+        return heap.drainDescending();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FeedScorerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
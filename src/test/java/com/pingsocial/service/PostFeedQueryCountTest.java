@@ -0,0 +1,148 @@
+package com.pingsocial.service;
+
+import com.pingsocial.dto.CursorPageDto;
+import com.pingsocial.dto.ResponsePost;
+import com.pingsocial.models.Post;
+import com.pingsocial.models.PostFilterType;
+import com.pingsocial.models.Tribe;
+import com.pingsocial.models.User;
+import com.pingsocial.repository.PostRepository;
+import com.pingsocial.repository.TribeRepository;
+import com.pingsocial.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:feed;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PostFeedQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private PostService postService;
+    private Statistics statistics;
+    private Long userId;
+    private Tribe sports;
+    private Tribe music;
+
+    @BeforeEach
+    void setUp() {
+        postService = new PostService(postRepository, userRepository,
+                mock(TribeService.class), mock(HomeTimelineService.class), mock(RankedFeedService.class),
+                mock(TribeRepository.class), mock(TribeMembershipCache.class), mock(PostArchiveService.class),
+                mock(PostTagService.class), mock(TrendingService.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User ana = user("ana@pingsocial.test", "ana");
+        User bruno = user("bruno@pingsocial.test", "bruno");
+        userId = ana.getId();
+        sports = entityManager.persist(new Tribe(null, "Esportes", "Tribo de esportes"));
+        music = entityManager.persist(new Tribe(null, "Música", "Tribo de música"));
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 10, 12, 0);
+        post(ana, "primeiro", base, Set.of());
+        post(bruno, "segundo", base.plusMinutes(1), Set.of(sports));
+        post(ana, "terceiro", base.plusMinutes(2), Set.of(sports, music));
+        post(bruno, "quarto", base.plusMinutes(3), Set.of(music));
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void readsEachFeedPageWithASingleStatement() {
+        CursorPageDto<ResponsePost> first = postService.getFeed(userId, PostFilterType.ALL, null, 3);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, first.items().size());
+        assertNotNull(first.nextCursor());
+
+        ResponsePost newest = first.items().get(0);
+        assertEquals("quarto", newest.content());
+        assertEquals("bruno", newest.authorNickname());
+        assertEquals(Set.of(music.getId()), newest.tribeIds());
+        assertEquals(Set.of(sports.getId(), music.getId()), first.items().get(1).tribeIds());
+
+        statistics.clear();
+        CursorPageDto<ResponsePost> second = postService.getFeed(userId, PostFilterType.ALL, first.nextCursor(), 3);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, second.items().size());
+        assertEquals("primeiro", second.items().get(0).content());
+        assertEquals(Set.of(), second.items().get(0).tribeIds());
+        assertFalse(second.hasNext());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void readsAuthorFeedWithASingleStatement() {
+        CursorPageDto<ResponsePost> page = postService.getFeed(userId, PostFilterType.MY_POSTS, null, 10);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, page.items().size());
+        assertEquals("terceiro", page.items().get(0).content());
+        assertEquals("ana", page.items().get(0).authorNickname());
+    }
+
+    @Test
+    void nextPageKeepsPostsFromTheSameMillisecond() {
+        LocalDateTime instant = LocalDateTime.of(2025, 2, 1, 9, 30, 0, 123_000_000);
+        post(userRepository.findById(userId).orElseThrow(), "mais novo", instant.plusNanos(5_000), Set.of());
+        post(userRepository.findById(userId).orElseThrow(), "mesmo milissegundo", instant.plusNanos(2_000), Set.of());
+        entityManager.flush();
+        entityManager.clear();
+
+        CursorPageDto<ResponsePost> first = postService.getFeed(userId, PostFilterType.ALL, null, 1);
+        assertEquals("mais novo", first.items().get(0).content());
+
+        CursorPageDto<ResponsePost> second = postService.getFeed(userId, PostFilterType.ALL, first.nextCursor(), 1);
+        assertEquals("mesmo milissegundo", second.items().get(0).content());
+        assertEquals(instant.plusNanos(2_000), second.items().get(0).createdAt());
+    }
+
+    private User user(String email, String nickname) {
+        User user = new User();
+        user.setEmail(email);
+        user.setNickname(nickname);
+        return entityManager.persist(user);
+    }
+
+    private void post(User author, String content, LocalDateTime createdAt, Set<Tribe> tribes) {
+        entityManager.persist(new Post(null, author, new HashSet<>(tribes), content, createdAt));
+    }
+}
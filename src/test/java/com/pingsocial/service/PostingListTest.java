@@ -0,0 +1,97 @@
+package com.pingsocial.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostingListTest {
+
+    @Test
+    void keepsIdsInAscendingOrder() {
+        PostingList list = listOf(3L, 10L, 11L, 300L, 70_000L);
+
+        assertArrayEquals(new long[]{3L, 10L, 11L, 300L, 70_000L}, list.toArray());
+        assertEquals(5, list.size());
+    }
+
+    @Test
+    void ignoresDuplicateIds() {
+        PostingList list = listOf(5L, 5L, 8L, 5L, 8L);
+
+        assertArrayEquals(new long[]{5L, 8L}, list.toArray());
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    void insertsOutOfOrderIdsInPlace() {
+        PostingList list = listOf(10L, 20L, 30L);
+
+        list.add(15L);
+        list.add(1L);
+        list.add(25L);
+        list.add(40L);
+
+        assertArrayEquals(new long[]{1L, 10L, 15L, 20L, 25L, 30L, 40L}, list.toArray());
+        assertEquals(7, list.size());
+    }
+
+    @Test
+    void encodesDeltasLargerThanThirtyFiveBits() {
+        long big = (1L << 35) + 123L;
+        long huge = Long.MAX_VALUE - 1;
+        PostingList list = listOf(7L, big, huge);
+
+        list.add(big - 1);
+
+        assertArrayEquals(new long[]{7L, big - 1, big, huge}, list.toArray());
+    }
+
+    @Test
+    void roundTripsThroughWriteToAndReadFrom() throws IOException {
+        long big = (1L << 40) + 9L;
+        PostingList list = listOf(1L, 2L, 130L, big);
+
+        PostingList copy = roundTrip(list);
+
+        assertArrayEquals(list.toArray(), copy.toArray());
+        assertEquals(list.size(), copy.size());
+
+        copy.add(big + 1);
+        copy.add(64L);
+        assertArrayEquals(new long[]{1L, 2L, 64L, 130L, big, big + 1}, copy.toArray());
+    }
+
+    @Test
+    void roundTripsAnEmptyList() throws IOException {
+        PostingList copy = roundTrip(new PostingList());
+
+        assertEquals(0, copy.size());
+        copy.add(42L);
+        assertArrayEquals(new long[]{42L}, copy.toArray());
+    }
+
+    private static PostingList listOf(long... ids) {
+        PostingList list = new PostingList();
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static PostingList roundTrip(PostingList list) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            list.writeTo(out);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return PostingList.readFrom(in);
+        }
+    }
+}